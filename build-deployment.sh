@@ -82,6 +82,7 @@ quarkus.hibernate-orm.database.generation=update
 # Authentication configuration
 app.admin.username=\${ADMIN_USERNAME:admin}
 app.admin.password=\${ADMIN_PASSWORD:admin123}
+app.admin.password-hash=\${ADMIN_PASSWORD_HASH:}
 
 # File upload configuration
 quarkus.http.body.handle-file-uploads=true
@@ -172,6 +173,7 @@ Set these environment variables in your AWS Amplify environment:
 
 - `ADMIN_USERNAME` - Admin username (default: admin)
 - `ADMIN_PASSWORD` - Admin password (default: admin123)
+- `ADMIN_PASSWORD_HASH` - BCrypt hash of the admin password, used instead of `ADMIN_PASSWORD` when set
 - `DB_USERNAME` - Database username
 - `DB_PASSWORD` - Database password
 - `DB_URL` - Database connection URL
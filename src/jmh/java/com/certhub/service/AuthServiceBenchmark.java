@@ -0,0 +1,78 @@
+package com.certhub.service;
+
+import org.jboss.resteasy.reactive.server.jaxrs.HttpHeadersImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Session checks as the resources see them: cookie header to verdict, in both session modes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    @Param({"memory", "token"})
+    String mode;
+
+    private AuthService authService;
+    private String sessionToken;
+    private HttpHeaders headers;
+    private HttpHeaders anonymousHeaders;
+
+    @Setup
+    public void setUp() {
+        SessionTokenService sessionTokens = new SessionTokenService();
+        sessionTokens.sessionMode = mode;
+        sessionTokens.sessionTtl = Duration.ofHours(24);
+        sessionTokens.signingKeys = Optional.of(List.of("k1:" + Base64.getEncoder().encodeToString(new byte[32])));
+        sessionTokens.init();
+
+        authService = new AuthService();
+        authService.sessionTtl = Duration.ofHours(24);
+        authService.reaperInterval = Duration.ofSeconds(10);
+        authService.sessionTokens = sessionTokens;
+        authService.init();
+        for (int i = 0; i < 10_000; i++) {
+            authService.createSession("user" + i);
+        }
+        sessionToken = authService.createSession("admin");
+
+        headers = new HttpHeadersImpl(List.of(Map.entry("Cookie",
+                "_ga=GA1.2.1234567890.1700000000; theme=dark; sessionId=" + sessionToken + "; lang=en-US")));
+        anonymousHeaders = new HttpHeadersImpl(List.of(Map.entry("Cookie", "_ga=GA1.2.1234567890.1700000000; theme=dark")));
+    }
+
+    @Benchmark
+    public boolean isAuthenticated() {
+        return authService.isAuthenticated(headers);
+    }
+
+    @Benchmark
+    public boolean isAuthenticatedWithoutSession() {
+        return authService.isAuthenticated(anonymousHeaders);
+    }
+
+    @Benchmark
+    public boolean validateSession() {
+        return authService.validateSession(sessionToken);
+    }
+}
@@ -0,0 +1,47 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic certificate sets shared by the benchmarks
+final class BenchmarkData {
+
+    // Vendors, roles and exam codes as they show up in real certificate titles, so short prefixes
+    // ("c", "s", "a") expand to many terms the way they do in production
+    private static final String[] WORDS = {"AWS", "Solutions", "Architect", "Kubernetes", "Administrator",
+            "Security", "Professional", "Azure", "Data", "Engineer", "Scrum", "Master", "Java", "Developer",
+            "Associate", "Specialty", "Foundational", "Fundamentals", "Expert", "Certified", "Cloud",
+            "Practitioner", "SysOps", "DevOps", "Networking", "Machine", "Learning", "Analytics", "Database",
+            "Google", "Oracle", "Microsoft", "Cisco", "CompTIA", "Linux", "Red", "Hat", "Terraform",
+            "HashiCorp", "Vault", "Consul", "Ansible", "Salesforce", "ServiceNow", "Snowflake", "Databricks",
+            "Spark", "Kafka", "Confluent", "MongoDB", "Cassandra", "Elastic", "Splunk", "Tableau", "Power",
+            "BI", "Python", "Go", "Rust", "Spring", "Quarkus", "Agile", "Product", "Owner", "Project",
+            "Management", "PMP", "PRINCE2", "ITIL", "CISSP", "CISM", "CEH", "OSCP", "CCNA", "CCNP", "CKA",
+            "CKAD", "CKS", "AZ-104", "AZ-305", "AZ-900", "SAA-C03", "SAP-C02", "DVA-C02", "SOA-C02",
+            "Security+", "Network+", "A+", "1Z0-819", "GCP", "ACE", "PCA", "Pentest", "Incident",
+            "Response", "Governance", "Compliance", "Auditor", "Lead", "Implementer", "ISO", "27001"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Certificate> certificates(int count) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Certificate> certificates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean pdf = random.nextInt(4) != 0;
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)];
+            Certificate certificate = new Certificate(title, "https://example.com/verify/" + i,
+                    "certificate-" + i + (pdf ? ".pdf" : ".jpg"), pdf ? "application/pdf" : "image/jpeg",
+                    "certificates/" + i, "certhub-certificates", 50_000L + random.nextInt(2_000_000));
+            certificate.uploadedAt = start.plusMinutes(random.nextInt(60 * 24 * 365 * 4));
+            certificates.add(certificate);
+        }
+        return certificates;
+    }
+}
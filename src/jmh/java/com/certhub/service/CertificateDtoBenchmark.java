@@ -0,0 +1,65 @@
+package com.certhub.service;
+
+import com.certhub.dto.CertificateDto;
+import com.certhub.entity.Certificate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Turning certificates into the JSON of a listing response: DTO mapping, then Jackson
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificateDtoBenchmark {
+
+    @Param({"50", "1000", "10000"})
+    int certificates;
+
+    private List<Certificate> data;
+    private List<CertificateDto> dtos;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.certificates(certificates);
+        dtos = toDtos();
+        // As configured by quarkus-jackson
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public List<CertificateDto> toDtos() {
+        return data.stream()
+                .map(CertificateDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(toDtos());
+    }
+}
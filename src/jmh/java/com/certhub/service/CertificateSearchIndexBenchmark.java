@@ -0,0 +1,68 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Query latency of the search index across a mix of prefix and multi-word queries and of
+// one- and two-character prefixes that match many terms, and the cost of an update
+// (a fresh ordinal, with the occasional renumbering amortized in)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificateSearchIndexBenchmark {
+
+    private static final String[] QUERIES = {"kubernetes admin", "aws solutions architect", "secur",
+            "scrum master", "java dev", "data eng", "azure professional", "example"};
+    // What a search box sends after the first keystroke or two; each expands to dozens of
+    // title terms, and the digits to thousands of file-name terms
+    private static final String[] SHORT_PREFIXES = {"c", "s", "a", "p", "co", "se", "az", "1", "12"};
+
+    @Param({"10000", "100000"})
+    int certificates;
+
+    private CertificateSearchIndex index;
+    private List<Certificate> data;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new CertificateSearchIndex();
+        data = BenchmarkData.certificates(certificates);
+        data.forEach(index::add);
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return index.search(QUERIES[ThreadLocalRandom.current().nextInt(QUERIES.length)], 20);
+    }
+
+    @Benchmark
+    public List<Long> shortPrefix() {
+        return index.search(SHORT_PREFIXES[ThreadLocalRandom.current().nextInt(SHORT_PREFIXES.length)], 20);
+    }
+
+    @Benchmark
+    public int update() {
+        Certificate certificate = data.get(ThreadLocalRandom.current().nextInt(data.size()));
+        certificate.title = QUERIES[next++ & 7];
+        index.add(certificate);
+        return next;
+    }
+}
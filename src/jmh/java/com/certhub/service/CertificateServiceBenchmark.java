@@ -0,0 +1,80 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// In-memory metadata lookups behind the certificate endpoints, without the metadata log
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificateServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    int certificates;
+
+    private CertificateService service;
+    private Long[] ids;
+    private String[] shareableIds;
+
+    @Setup
+    public void setUp() {
+        service = new CertificateService();
+        List<Certificate> data = BenchmarkData.certificates(certificates);
+        ids = new Long[data.size()];
+        shareableIds = new String[data.size()];
+        for (int i = 0; i < data.size(); i++) {
+            service.saveCertificate(data.get(i));
+            ids[i] = data.get(i).id;
+            shareableIds[i] = data.get(i).shareableId;
+        }
+    }
+
+    @Benchmark
+    public Certificate findById() {
+        return service.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public Certificate findByShareableId() {
+        return service.findByShareableId(shareableIds[ThreadLocalRandom.current().nextInt(shareableIds.length)]);
+    }
+
+    @Benchmark
+    public List<Certificate> firstPage() {
+        return service.findPage(null, null, null, null, 51);
+    }
+
+    @Benchmark
+    public List<Certificate> filteredPage() {
+        return service.findPage(null, "image/", LocalDateTime.of(2021, 1, 1, 0, 0),
+                LocalDateTime.of(2021, 12, 31, 23, 59), 51);
+    }
+
+    @Benchmark
+    public List<Certificate> search() {
+        return service.search("kube admin", 20);
+    }
+
+    @Benchmark
+    public List<Certificate> findAll() {
+        return service.findAllCertificates();
+    }
+}
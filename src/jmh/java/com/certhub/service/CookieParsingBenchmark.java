@@ -0,0 +1,67 @@
+package com.certhub.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The per-request auth path: finding the session cookie in a browser-sized Cookie header
+// (the old split-based parser against CookieScanner) and resolving it against the session store.
+// Run with -prof gc to see the allocation rate of each variant.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieParsingBenchmark {
+
+    private String header;
+    private SessionStore sessions;
+
+    @Setup
+    public void setUp() {
+        sessions = new SessionStore(TimeUnit.HOURS.toMillis(24), 10_000, false);
+        for (int i = 0; i < 10_000; i++) {
+            sessions.create("user" + i);
+        }
+        String token = sessions.create("admin");
+        header = "_ga=GA1.2.1234567890.1700000000; theme=dark; lang=en-US; sessionId=" + token
+                + "; csrftoken=Yx8mN2pQ7rT4vW1zA3bC5dE6fG9hJ0kL";
+    }
+
+    @Benchmark
+    public String splitParse() {
+        String[] cookies = header.split(";");
+        for (String cookie : cookies) {
+            String[] parts = cookie.trim().split("=");
+            if (parts.length == 2 && "sessionId".equals(parts[0])) {
+                return parts[1];
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public long scannerLocate() {
+        return CookieScanner.locate(header, "sessionId");
+    }
+
+    @Benchmark
+    public String scannerValue() {
+        return CookieScanner.value(header, "sessionId");
+    }
+
+    @Benchmark
+    public SessionStore.Session resolveSession() {
+        return sessions.get(CookieScanner.value(header, "sessionId"));
+    }
+}
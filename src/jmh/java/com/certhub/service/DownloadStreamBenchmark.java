@@ -0,0 +1,73 @@
+package com.certhub.service;
+
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The download copy loop: stream to pooled chunks to Multi<Buffer>, with every chunk recycled
+// as the response writer would. The HTTP write itself is left out.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DownloadStreamBenchmark {
+
+    @Param({"262144", "4194304"})
+    int size;
+
+    private byte[] content;
+    private ExecutorService executor;
+    private DownloadStreamService downloadStreamService;
+
+    @Setup
+    public void setUp() {
+        content = new byte[size];
+        new Random(1).nextBytes(content);
+        // Stands in for the virtual thread executor, which needs Java 21
+        executor = Executors.newSingleThreadExecutor();
+        downloadStreamService = new DownloadStreamService();
+        downloadStreamService.chunkSize = 32768;
+        downloadStreamService.pooledChunks = 256;
+        downloadStreamService.virtualThreads = executor;
+        downloadStreamService.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long streamAndRecycle() {
+        return downloadStreamService.fromStream(new ByteArrayInputStream(content))
+                .onItem().transform(this::consume)
+                .collect().with(Collectors.summingLong(Long::longValue))
+                .await().atMost(Duration.ofSeconds(30));
+    }
+
+    private long consume(Buffer chunk) {
+        long length = chunk.length();
+        downloadStreamService.recycle(chunk);
+        return length;
+    }
+}
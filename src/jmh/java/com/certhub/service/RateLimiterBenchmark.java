@@ -0,0 +1,64 @@
+package com.certhub.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost the limiter adds to a request that is let through: one table lookup and one CAS,
+// spread over many clients (the common case) and contended on a single hot client. Plus
+// a flood of never-seen clients against a full table, where each one has to evict a bucket.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private RateLimiter limiter;
+    private RateLimiter fullLimiter;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        // Limits high enough that every request is allowed
+        limiter = new RateLimiter(Integer.MAX_VALUE / 2, Integer.MAX_VALUE, 100_000);
+        clients = new String[10_000];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255);
+            limiter.tryAcquire(clients[i]);
+        }
+        // Real limits, so buckets stay busy for the length of a run and the table stays full
+        fullLimiter = new RateLimiter(10, 60, 100_000);
+        for (int i = 0; i < 100_000; i++) {
+            fullLimiter.tryAcquire("172." + (16 + (i >> 16)) + "." + ((i >> 8) & 255) + "." + (i & 255));
+        }
+    }
+
+    @Benchmark
+    public long manyClients() {
+        return limiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(clients.length)]);
+    }
+
+    @Benchmark
+    public long oneHotClient() {
+        return limiter.tryAcquire(clients[0]);
+    }
+
+    @Benchmark
+    public long newClientsOnAFullTable() {
+        return fullLimiter.tryAcquire(Long.toHexString(ThreadLocalRandom.current().nextLong()));
+    }
+}
@@ -0,0 +1,55 @@
+package com.certhub.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Lookup latency with sliding expiration should not grow with the number of live sessions,
+// and a reaper pass with nothing due should stay cheap however many sessions are filed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SessionStoreBenchmark {
+
+    private static final long DAY = 24 * 3_600_000L;
+
+    @Param({"1000", "1000000"})
+    int sessions;
+
+    private SessionStore store;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        store = new SessionStore(DAY, 10_000L, true);
+        tokens = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            tokens[i] = store.create("user" + i);
+        }
+    }
+
+    @Benchmark
+    public SessionStore.Session lookup() {
+        return store.get(tokens[ThreadLocalRandom.current().nextInt(tokens.length)]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int reap() {
+        return store.expire();
+    }
+}
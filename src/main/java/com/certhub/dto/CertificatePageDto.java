@@ -0,0 +1,16 @@
+package com.certhub.dto;
+
+import java.util.List;
+
+public class CertificatePageDto {
+    public List<CertificateDto> items;
+    // Pass back as "after" to fetch the next page; null on the last page
+    public String nextCursor;
+
+    public CertificatePageDto() {}
+
+    public CertificatePageDto(List<CertificateDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
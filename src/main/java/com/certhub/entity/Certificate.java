@@ -20,7 +20,7 @@ public class Certificate {
 
     public Certificate(String title, String credentialLink, String fileName, String fileType, 
                       String s3Key, String s3Bucket, Long fileSize) {
-        this.id = System.currentTimeMillis(); // Simple ID generation
+        this.id = SnowflakeIdGenerator.shared().nextId();
         this.title = title;
         this.credentialLink = credentialLink;
         this.fileName = fileName;
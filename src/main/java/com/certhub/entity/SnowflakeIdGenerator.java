@@ -0,0 +1,87 @@
+package com.certhub.entity;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Time-ordered, collision-free ids without locks or cross-node coordination.
+// Layout (53 bits, so ids survive a round trip through JavaScript numbers):
+//   41 bits milliseconds since 2024-01-01 | 4 bits node | 8 bits sequence
+// The clock and sequence share one AtomicLong advanced by CAS. When the clock stalls,
+// runs backwards or a millisecond's 256 sequence numbers are used up, the generator
+// keeps counting from the last id it issued instead of reusing the wall clock.
+public class SnowflakeIdGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+
+    private static final SnowflakeIdGenerator SHARED = new SnowflakeIdGenerator(configuredNode());
+
+    private final long node;
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    public static SnowflakeIdGenerator shared() {
+        return SHARED;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long next = now > previous ? now : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                return compose(next);
+            }
+        }
+    }
+
+    // Never issue anything at or below an id that already exists, e.g. one loaded from
+    // the metadata store after a restart on a node whose clock has since gone back
+    public void advancePast(long existingId) {
+        if (existingId < 0) {
+            return;
+        }
+        // Jump to the last slot of that millisecond: ids from a higher node id in the
+        // same millisecond would otherwise still sort above ours
+        long time = existingId >>> (NODE_BITS + SEQUENCE_BITS);
+        long state = ((time + 1) << SEQUENCE_BITS) - 1;
+        last.accumulateAndGet(state, Math::max);
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    private long compose(long state) {
+        long time = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (time << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    private static long configuredNode() {
+        try {
+            return ConfigProvider.getConfig().getOptionalValue("app.node-id", Long.class).orElse(0L);
+        } catch (IllegalStateException e) {
+            // No config outside the application, e.g. plain unit tests
+            return 0;
+        }
+    }
+}
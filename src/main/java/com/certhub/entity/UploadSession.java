@@ -0,0 +1,48 @@
+package com.certhub.entity;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class UploadSession {
+
+    public String id;
+    public String title;
+    public String credentialLink;
+    public String fileName;
+    public String fileType;
+    public long fileSize;
+    public long chunkSize;
+    public int totalParts;
+    public String s3Key;
+    public String s3UploadId;
+    // Part number -> S3 ETag, filled in as chunks are acknowledged
+    public final Map<Integer, String> partETags = new ConcurrentSkipListMap<>();
+    public volatile long lastActivityAt;
+
+    public UploadSession() {}
+
+    public UploadSession(String title, String credentialLink, String fileName, String fileType,
+                         long fileSize, long chunkSize) {
+        this.id = UUID.randomUUID().toString();
+        this.title = title;
+        this.credentialLink = credentialLink;
+        this.fileName = fileName;
+        this.fileType = fileType;
+        this.fileSize = fileSize;
+        this.chunkSize = chunkSize;
+        this.totalParts = (int) ((fileSize + chunkSize - 1) / chunkSize);
+        this.lastActivityAt = System.currentTimeMillis();
+    }
+
+    public long expectedPartSize(int partNumber) {
+        if (partNumber < totalParts) {
+            return chunkSize;
+        }
+        return fileSize - chunkSize * (totalParts - 1);
+    }
+
+    public boolean isComplete() {
+        return partETags.size() == totalParts;
+    }
+}
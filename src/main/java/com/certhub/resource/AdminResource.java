@@ -0,0 +1,133 @@
+package com.certhub.resource;
+
+import com.certhub.service.CredentialStore;
+import com.certhub.service.DownloadStreamService;
+import com.certhub.service.FlightRecorderService;
+import com.certhub.service.ObjectCacheService;
+import com.certhub.service.Secured;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@Path("/api/admin")
+@Secured
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminResource {
+
+    @Inject
+    ObjectCacheService objectCacheService;
+
+    @Inject
+    CredentialStore credentialStore;
+
+    @Inject
+    FlightRecorderService flightRecorderService;
+
+    @Inject
+    DownloadStreamService downloadStreamService;
+
+    @GET
+    @Path("/cache")
+    public Response getCacheStats() {
+        return Response.ok(new CacheStatsResponse(objectCacheService)).build();
+    }
+
+    @GET
+    @Path("/credentials")
+    public Response getCredentialStats() {
+        return Response.ok(new CredentialStatsResponse(credentialStore)).build();
+    }
+
+    // The rolling flight recording so far; open with JDK Mission Control or `jfr print`
+    @GET
+    @Path("/recording")
+    @Blocking
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response getRecording() {
+        if (!flightRecorderService.isRecording()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ErrorResponse("No flight recording available"))
+                    .build();
+        }
+        // The snapshot copies the recording's chunks, so it is only taken once the body is
+        // subscribed to; a HEAD never does and would otherwise leave the copy open
+        String fileName = "certhub-" + Instant.now().truncatedTo(ChronoUnit.SECONDS).toString().replace(":", "") + ".jfr";
+        return Response.ok(DownloadStreamService.entity(downloadStreamService.fromStream(() -> {
+                    try {
+                        InputStream recording = flightRecorderService.snapshot();
+                        return recording != null ? recording : InputStream.nullInputStream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })))
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    public static class CacheStatsResponse {
+        public boolean enabled;
+        public long entries;
+        public long sizeBytes;
+        public long capacityBytes;
+        public long hits;
+        public long misses;
+        public double hitRate;
+        public long evictions;
+        public long evictedBytes;
+        public long loadFailures;
+
+        public CacheStatsResponse(ObjectCacheService cache) {
+            CacheStats stats = cache.stats();
+            this.enabled = cache.isEnabled();
+            this.entries = cache.entryCount();
+            this.sizeBytes = cache.weightedSize();
+            this.capacityBytes = cache.capacity();
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.hitRate = stats.hitRate();
+            this.evictions = stats.evictionCount();
+            this.evictedBytes = stats.evictionWeight();
+            this.loadFailures = stats.loadFailureCount();
+        }
+    }
+
+    public static class CredentialStatsResponse {
+        public int bcryptCost;
+        public int queueDepth;
+        public int activeHashes;
+        public long completedHashes;
+        public long rejectedHashes;
+        public double meanHashMillis;
+        public double maxHashMillis;
+
+        public CredentialStatsResponse(CredentialStore store) {
+            this.bcryptCost = store.currentCost();
+            this.queueDepth = store.queueDepth();
+            this.activeHashes = store.activeHashes();
+            this.completedHashes = store.completedHashes();
+            this.rejectedHashes = store.rejectedHashes();
+            this.meanHashMillis = store.meanHashMillis();
+            this.maxHashMillis = store.maxHashMillis();
+        }
+    }
+
+    public static class ErrorResponse {
+        public String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+    }
+}
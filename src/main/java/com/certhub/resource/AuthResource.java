@@ -3,6 +3,8 @@ package com.certhub.resource;
 import com.certhub.dto.LoginRequest;
 import com.certhub.dto.LoginResponse;
 import com.certhub.service.AuthService;
+import com.certhub.service.CredentialStore;
+import com.certhub.service.RateLimited;
 import com.certhub.service.RecaptchaService;
 
 import jakarta.inject.Inject;
@@ -13,6 +15,7 @@ import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.NewCookie;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
+import java.util.concurrent.CompletionStage;
 
 @Path("/api/auth")
 @Produces(MediaType.APPLICATION_JSON)
@@ -27,32 +30,48 @@ public class AuthResource {
 
     @POST
     @Path("/login")
-    public Response login(@Valid LoginRequest loginRequest) {
-        if (!authService.authenticate(loginRequest.username, loginRequest.password)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(LoginResponse.failure("Invalid credentials"))
-                    .build();
-        }
+    @RateLimited("login")
+    public CompletionStage<Response> login(@Valid LoginRequest loginRequest) {
+        // Password hashing runs on its own pool; the response is built when it completes
+        return authService.authenticate(loginRequest.username, loginRequest.password)
+                .handle((authenticated, failure) -> {
+                    if (failure instanceof CredentialStore.CredentialsBusyException) {
+                        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                .header("Retry-After", 1)
+                                .entity(LoginResponse.failure("Too many login attempts, please retry"))
+                                .build();
+                    }
+                    if (failure != null) {
+                        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                                .entity(LoginResponse.failure("Login failed"))
+                                .build();
+                    }
+                    if (!authenticated) {
+                        return Response.status(Response.Status.UNAUTHORIZED)
+                                .entity(LoginResponse.failure("Invalid credentials"))
+                                .build();
+                    }
 
-        String sessionToken = authService.createSession(loginRequest.username);
-        
-        // Set session token as cookie
-        NewCookie sessionCookie = new NewCookie.Builder("sessionId")
-                .value(sessionToken)
-                .path("/")
-                .maxAge(24 * 60 * 60) // 24 hours
-                .httpOnly(true)
-                .build();
-        
-        return Response.ok(LoginResponse.success(sessionToken))
-                .cookie(sessionCookie)
-                .build();
+                    String sessionToken = authService.createSession(loginRequest.username);
+
+                    // Set session token as cookie
+                    NewCookie sessionCookie = new NewCookie.Builder("sessionId")
+                            .value(sessionToken)
+                            .path("/")
+                            .maxAge(24 * 60 * 60) // 24 hours
+                            .httpOnly(true)
+                            .build();
+
+                    return Response.ok(LoginResponse.success(sessionToken))
+                            .cookie(sessionCookie)
+                            .build();
+                });
     }
 
     @POST
     @Path("/logout")
-    public Response logout() {
-        authService.logout();
+    public Response logout(@Context HttpHeaders headers) {
+        authService.logout(headers);
         
         // Clear session cookie
         NewCookie clearCookie = new NewCookie.Builder("sessionId")
@@ -69,8 +88,8 @@ public class AuthResource {
     @GET
     @Path("/status")
     public Response getAuthStatus(@Context HttpHeaders headers) {
-        boolean isAuthenticated = authService.isAuthenticated(headers);
-        String currentUser = isAuthenticated ? authService.getCurrentUser() : null;
+        String currentUser = authService.getCurrentUser(headers);
+        boolean isAuthenticated = currentUser != null;
         return Response.ok(new AuthStatusResponse(isAuthenticated, currentUser)).build();
     }
 
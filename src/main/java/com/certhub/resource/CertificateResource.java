@@ -1,10 +1,24 @@
 package com.certhub.resource;
 
+import com.amazonaws.SdkClientException;
 import com.certhub.dto.CertificateDto;
+import com.certhub.dto.CertificatePageDto;
 import com.certhub.entity.Certificate;
-import com.certhub.service.AuthService;
+import com.certhub.service.CertificateCursor;
+import com.certhub.service.CertificateFileService;
+import com.certhub.service.CertificateImportService;
 import com.certhub.service.CertificateService;
+import com.certhub.service.ObjectCacheService;
+import com.certhub.service.PresignedUrlService;
+import com.certhub.service.RequestEvents;
 import com.certhub.service.S3Service;
+import com.certhub.service.Secured;
+import com.certhub.service.ThumbnailService;
+import com.certhub.service.TransferMetrics;
+import com.certhub.service.ValidatingUploadStream;
+import com.certhub.service.VirtualThreadDispatcher;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.smallrye.common.annotation.Blocking;
 import jakarta.inject.Inject;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
@@ -12,17 +26,36 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
+import java.util.zip.ZipException;
 
 @Path("/api/certificates")
+@Secured
 @Produces(MediaType.APPLICATION_JSON)
 public class CertificateResource {
 
+    static final long MAX_FILE_SIZE = 15 * 1024 * 1024;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+    static final int DEFAULT_SEARCH_RESULTS = 20;
+    static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    static final int MAX_TEXT_LENGTH = 2048;
+
+    @Inject
+    VirtualThreadDispatcher virtualThreadDispatcher;
+
     @Inject
     S3Service s3Service;
 
@@ -30,102 +63,307 @@ public class CertificateResource {
     CertificateService certificateService;
 
     @Inject
-    AuthService authService;
+    CertificateFileService certificateFileService;
+
+    @Inject
+    ObjectCacheService objectCacheService;
+
+    @Inject
+    PresignedUrlService presignedUrlService;
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    @Inject
+    ThumbnailService thumbnailService;
+
+    @Inject
+    CertificateImportService certificateImportService;
 
     @GET
-    public Response getUserCertificates(@Context HttpHeaders headers) {
-        // Check authentication
-        if (!authService.isAuthenticated(headers)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(new ErrorResponse("Authentication required"))
+    public Response getUserCertificates(@QueryParam("limit") Integer limit,
+                                        @QueryParam("after") String after,
+                                        @QueryParam("type") String type,
+                                        @QueryParam("from") String from,
+                                        @QueryParam("to") String to) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE))
                     .build();
         }
 
-        List<Certificate> certificates = certificateService.findAllCertificates();
+        CertificateCursor cursor;
+        LocalDateTime uploadedFrom;
+        LocalDateTime uploadedTo;
+        try {
+            cursor = after == null || after.isEmpty() ? null : CertificateCursor.decode(after);
+            uploadedFrom = parseDate(from, false);
+            uploadedTo = parseDate(to, true);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid cursor or date filter"))
+                    .build();
+        }
+        String fileType = type == null || type.isEmpty() ? null : type.toLowerCase();
+
+        // One extra row tells us whether there is a next page
+        List<Certificate> certificates = certificateService.findPage(cursor, fileType, uploadedFrom, uploadedTo, pageSize + 1);
+        String nextCursor = null;
+        if (certificates.size() > pageSize) {
+            certificates = certificates.subList(0, pageSize);
+            nextCursor = CertificateCursor.of(certificates.get(pageSize - 1)).encode();
+        }
         List<CertificateDto> certificateDtos = certificates.stream()
                 .map(CertificateDto::new)
                 .collect(Collectors.toList());
-        return Response.ok(certificateDtos).build();
+        return Response.ok(new CertificatePageDto(certificateDtos, nextCursor)).build();
     }
 
-    @POST
-    @Path("/upload")
-    @Consumes(MediaType.APPLICATION_JSON)
-    public Response uploadCertificate(CertificateUploadRequest request, @Context HttpHeaders headers) {
-        // Check authentication
-        if (!authService.isAuthenticated(headers)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(new ErrorResponse("Authentication required"))
-                    .build();
-        }
-
-        if (request.fileData == null || request.fileData.isEmpty()) {
+    @GET
+    @Path("/search")
+    public Response searchCertificates(@QueryParam("q") String query,
+                                       @QueryParam("limit") Integer limit) {
+        if (query == null || query.isBlank() || query.length() > MAX_SEARCH_QUERY_LENGTH) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse("File data is required"))
+                    .entity(new ErrorResponse("Query must be between 1 and " + MAX_SEARCH_QUERY_LENGTH + " characters"))
                     .build();
         }
 
-        if (request.fileName == null || request.fileName.isEmpty()) {
+        int resultLimit = limit == null ? DEFAULT_SEARCH_RESULTS : limit;
+        if (resultLimit < 1 || resultLimit > MAX_PAGE_SIZE) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse("File name is required"))
+                    .entity(new ErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE))
                     .build();
         }
 
-        try {
-            byte[] fileBytes = Base64.getDecoder().decode(request.fileData);
+        List<CertificateDto> certificateDtos = certificateService.search(query, resultLimit).stream()
+                .map(CertificateDto::new)
+                .collect(Collectors.toList());
+        return Response.ok(certificateDtos).build();
+    }
+
+    @POST
+    @Path("/upload")
+    @Blocking
+    @Consumes(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> uploadCertificate(CertificateUploadRequest request) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            if (request.fileData == null || request.fileData.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File data is required"))
+                        .build();
+            }
+
+            if (request.fileName == null || request.fileName.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File name is required"))
+                        .build();
+            }
+
+            if (isTooLong(request.title) || isTooLong(request.credentialLink)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Title and credential link must be at most " + MAX_TEXT_LENGTH + " characters"))
+                        .build();
+            }
+
+            try {
+                byte[] fileBytes = Base64.getDecoder().decode(request.fileData);
             
-            if (fileBytes.length > 15 * 1024 * 1024) {
+                if (fileBytes.length > MAX_FILE_SIZE) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("File size exceeds 15MB limit"))
+                            .build();
+                }
+
+                String contentType = getContentType(request.fileName);
+                if (!isValidFileType(contentType)) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("Only PDF and JPEG files are allowed"))
+                            .build();
+                }
+
+                try (InputStream fileStream = new ByteArrayInputStream(fileBytes)) {
+                    String s3Key = s3Service.uploadFile(fileStream, request.fileName, 
+                            contentType, fileBytes.length);
+
+                    Certificate certificate = new Certificate(
+                            request.title,
+                            request.credentialLink,
+                            request.fileName,
+                            contentType,
+                            s3Key,
+                            "certhub-certificates",
+                            (long) fileBytes.length
+                    );
+                    certificateService.saveCertificate(certificate);
+                    transferMetrics.received("/api/certificates/upload", fileBytes.length);
+                    transferMetrics.uploaded(fileBytes.length);
+                    thumbnailService.schedule(certificate);
+
+                    return Response.ok(new CertificateDto(certificate)).build();
+                }
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Invalid file data format"))
+                        .build();
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (IOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to upload file"))
+                        .build();
+            }
+        });
+    }
+
+    @POST
+    @Path("/upload/stream")
+    @Blocking
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    public CompletionStage<Response> uploadCertificateStream(InputStream body,
+                                                             @QueryParam("title") String title,
+                                                             @QueryParam("credentialLink") String credentialLink,
+                                                             @QueryParam("fileName") String fileName,
+                                                             @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            if (fileName == null || fileName.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File name is required"))
+                        .build();
+            }
+
+            if (isTooLong(title) || isTooLong(credentialLink)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Title and credential link must be at most " + MAX_TEXT_LENGTH + " characters"))
+                        .build();
+            }
+
+            // S3 needs the length up front, otherwise the SDK buffers the whole body
+            long contentLength = headers.getLength();
+            if (contentLength < 0) {
+                return Response.status(Response.Status.LENGTH_REQUIRED)
+                        .entity(new ErrorResponse("Content-Length header is required"))
+                        .build();
+            }
+            if (contentLength == 0) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File data is required"))
+                        .build();
+            }
+            if (contentLength > MAX_FILE_SIZE) {
                 return Response.status(Response.Status.BAD_REQUEST)
                         .entity(new ErrorResponse("File size exceeds 15MB limit"))
                         .build();
             }
 
-            String contentType = getContentType(request.fileName);
+            String contentType = getContentType(fileName);
             if (!isValidFileType(contentType)) {
                 return Response.status(Response.Status.BAD_REQUEST)
                         .entity(new ErrorResponse("Only PDF and JPEG files are allowed"))
                         .build();
             }
 
-            try (InputStream fileStream = new ByteArrayInputStream(fileBytes)) {
-                String s3Key = s3Service.uploadFile(fileStream, request.fileName, 
-                        contentType, fileBytes.length);
+            LongTaskTimer.Sample upload = transferMetrics.uploadStarted();
+            try (InputStream fileStream = ValidatingUploadStream.open(body, contentType, MAX_FILE_SIZE)) {
+                String s3Key = s3Service.uploadFile(fileStream, fileName, contentType, contentLength);
 
                 Certificate certificate = new Certificate(
-                        request.title,
-                        request.credentialLink,
-                        request.fileName,
+                        title,
+                        credentialLink,
+                        fileName,
                         contentType,
                         s3Key,
                         "certhub-certificates",
-                        (long) fileBytes.length
+                        contentLength
                 );
                 certificateService.saveCertificate(certificate);
+                transferMetrics.received("/api/certificates/upload/stream", contentLength);
+                transferMetrics.uploaded(contentLength);
+                thumbnailService.schedule(certificate);
 
                 return Response.ok(new CertificateDto(certificate)).build();
+            } catch (ValidatingUploadStream.UploadRejectedException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (SdkClientException e) {
+                ValidatingUploadStream.UploadRejectedException rejection = findRejection(e);
+                if (rejection != null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse(rejection.getMessage()))
+                            .build();
+                }
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to upload file"))
+                        .build();
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (IOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to upload file"))
+                        .build();
+            } finally {
+                upload.stop();
             }
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(new ErrorResponse("Invalid file data format"))
-                    .build();
-        } catch (IOException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Failed to upload file"))
-                    .build();
-        }
+        });
+    }
+
+    // A ZIP of PDF/JPEG files, optionally with a manifest.json of titles and credential links.
+    // Each entry is validated and reported on its own; one bad file does not fail the rest.
+    @POST
+    @Path("/import")
+    @Blocking
+    @Consumes({"application/zip", MediaType.APPLICATION_OCTET_STREAM})
+    public CompletionStage<Response> importCertificates(InputStream body) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            LongTaskTimer.Sample upload = transferMetrics.uploadStarted();
+            try {
+                List<CertificateImportService.EntryResult> results =
+                        certificateImportService.importArchive(body, CertificateResource::getContentType,
+                                CertificateResource::isTooLong, MAX_FILE_SIZE);
+                if (results.isEmpty()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity(new ErrorResponse("Archive contains no certificate files"))
+                            .build();
+                }
+
+                for (CertificateImportService.EntryResult result : results) {
+                    if (result.certificate != null) {
+                        transferMetrics.received("/api/certificates/import", result.certificate.fileSize);
+                        transferMetrics.uploaded(result.certificate.fileSize);
+                        thumbnailService.schedule(result.certificate);
+                    }
+                }
+                return Response.ok(new ImportResponse(results)).build();
+            } catch (ZipException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Invalid ZIP archive"))
+                        .build();
+            } catch (CertificateImportService.ArchiveTooLargeException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Archive expands to more than the allowed size"))
+                        .build();
+            } catch (IOException | RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to import certificates"))
+                        .build();
+            } finally {
+                upload.stop();
+            }
+        });
     }
 
     @GET
     @Path("/{id}")
-    public Response getCertificate(@PathParam("id") Long id, @Context HttpHeaders headers) {
-        // Check authentication
-        if (!authService.isAuthenticated(headers)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(new ErrorResponse("Authentication required"))
-                    .build();
-        }
-
-        Certificate certificate = certificateService.findById(id);
+    public Response getCertificate(@PathParam("id") Long id) {
+        Certificate certificate = RequestEvents.lookup("/api/certificates/{id}", id, () -> certificateService.findById(id));
         
         if (certificate == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -139,15 +377,8 @@ public class CertificateResource {
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response updateCertificate(@PathParam("id") Long id, CertificateUpdateRequest request, @Context HttpHeaders headers) {
-        // Check authentication
-        if (!authService.isAuthenticated(headers)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(new ErrorResponse("Authentication required"))
-                    .build();
-        }
-
-        Certificate certificate = certificateService.findById(id);
+    public Response updateCertificate(@PathParam("id") Long id, CertificateUpdateRequest request) {
+        Certificate certificate = RequestEvents.lookup("/api/certificates/{id}", id, () -> certificateService.findById(id));
         
         if (certificate == null) {
             return Response.status(Response.Status.NOT_FOUND)
@@ -155,6 +386,12 @@ public class CertificateResource {
                     .build();
         }
 
+        if (isTooLong(request.title) || isTooLong(request.credentialLink)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Title and credential link must be at most " + MAX_TEXT_LENGTH + " characters"))
+                    .build();
+        }
+
         certificate.title = request.title;
         certificate.credentialLink = request.credentialLink;
         certificateService.updateCertificate(certificate);
@@ -164,114 +401,149 @@ public class CertificateResource {
 
     @DELETE
     @Path("/{id}")
-    public Response deleteCertificate(@PathParam("id") Long id) {
-        Certificate certificate = certificateService.findById(id);
+    @Blocking
+    public CompletionStage<Response> deleteCertificate(@PathParam("id") Long id) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/certificates/{id}", id, () -> certificateService.findById(id));
         
-        if (certificate == null) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse("Certificate not found"))
-                    .build();
-        }
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
 
-        s3Service.deleteFile(certificate.s3Key);
-        certificateService.deleteCertificate(id);
+            s3Service.deleteFile(certificate.s3Key);
+            objectCacheService.invalidate(certificate.s3Key);
+            thumbnailService.delete(certificate);
+            presignedUrlService.invalidate(certificate.s3Key);
+            certificateService.deleteCertificate(id);
 
-        return Response.noContent().build();
+            return Response.noContent().build();
+        });
     }
 
     @GET
     @Path("/{id}/preview")
+    @Blocking
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    public Response previewCertificate(@PathParam("id") Long id, @Context HttpHeaders headers) {
-        // Check authentication
-        if (!authService.isAuthenticated(headers)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(new ErrorResponse("Authentication required"))
-                    .build();
-        }
-
-        Certificate certificate = certificateService.findById(id);
+    public CompletionStage<Response> previewCertificate(@PathParam("id") Long id, @Context Request request,
+                                                        @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/certificates/{id}/preview", id, () -> certificateService.findById(id));
         
-        if (certificate == null) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse("Certificate not found"))
-                    .build();
-        }
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
 
-        try {
-            com.amazonaws.services.s3.model.S3Object s3Object = s3Service.getFile(certificate.s3Key);
-            java.io.InputStream inputStream = s3Object.getObjectContent();
-            
-            jakarta.ws.rs.core.StreamingOutput stream = output -> {
-                try (java.io.InputStream input = inputStream) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = input.read(buffer)) != -1) {
-                        output.write(buffer, 0, bytesRead);
-                    }
-                } catch (java.io.IOException e) {
-                    throw new RuntimeException("Failed to stream file", e);
-                }
-            };
+            try {
+                return certificateFileService.serve(certificate, "inline", false, request, headers);
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to preview file"))
+                        .build();
+            }
+        });
+    }
 
-            return Response.ok(stream)
-                    .header("Content-Type", certificate.fileType)
-                    .header("Content-Disposition", "inline; filename=\"" + certificate.fileName + "\"")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Failed to preview file"))
-                    .build();
-        }
+    // A downscaled JPEG for list views; size is the wanted longest edge in pixels
+    @GET
+    @Path("/{id}/thumbnail")
+    @Blocking
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public CompletionStage<Response> thumbnailCertificate(@PathParam("id") Long id, @QueryParam("size") int size,
+                                                          @Context Request request, @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/certificates/{id}/thumbnail", id, () -> certificateService.findById(id));
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
+            if (!thumbnailService.supports(certificate)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("No thumbnail for this file type"))
+                        .build();
+            }
+
+            try {
+                String variantKey = thumbnailService.variantKey(certificate, size);
+                return certificateFileService.serveThumbnail(certificate, variantKey, false, request, headers);
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to load thumbnail"))
+                        .build();
+            }
+        });
     }
 
     @GET
     @Path("/{id}/download")
+    @Blocking
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    public Response downloadCertificate(@PathParam("id") Long id, @Context HttpHeaders headers) {
-        // Check authentication
-        if (!authService.isAuthenticated(headers)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(new ErrorResponse("Authentication required"))
-                    .build();
-        }
-
-        Certificate certificate = certificateService.findById(id);
+    public CompletionStage<Response> downloadCertificate(@PathParam("id") Long id, @Context Request request,
+                                                         @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/certificates/{id}/download", id, () -> certificateService.findById(id));
         
-        if (certificate == null) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse("Certificate not found"))
-                    .build();
-        }
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
 
-        try {
-            com.amazonaws.services.s3.model.S3Object s3Object = s3Service.getFile(certificate.s3Key);
-            java.io.InputStream inputStream = s3Object.getObjectContent();
-            
-            jakarta.ws.rs.core.StreamingOutput stream = output -> {
-                try (java.io.InputStream input = inputStream) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = input.read(buffer)) != -1) {
-                        output.write(buffer, 0, bytesRead);
-                    }
-                } catch (java.io.IOException e) {
-                    throw new RuntimeException("Failed to stream file", e);
-                }
-            };
+            try {
+                return certificateFileService.serve(certificate, "attachment", false, request, headers);
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to download file"))
+                        .build();
+            }
+        });
+    }
 
-            return Response.ok(stream)
-                    .header("Content-Type", certificate.fileType)
-                    .header("Content-Disposition", "attachment; filename=\"" + certificate.fileName + "\"")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Failed to download file"))
-                    .build();
+    private ValidatingUploadStream.UploadRejectedException findRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ValidatingUploadStream.UploadRejectedException) {
+                return (ValidatingUploadStream.UploadRejectedException) cause;
+            }
         }
+        return null;
+    }
+
+    // Accepts 2024-05-01 or 2024-05-01T12:00:00; a bare "to" date covers the whole day
+    static LocalDateTime parseDate(String value, boolean endOfDay) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (value.contains("T")) {
+            return LocalDateTime.parse(value);
+        }
+        LocalDate date = LocalDate.parse(value);
+        return endOfDay ? date.atTime(LocalTime.MAX) : date.atStartOfDay();
+    }
+
+    static boolean isTooLong(String text) {
+        return text != null && text.length() > MAX_TEXT_LENGTH;
     }
 
-    private String getContentType(String fileName) {
+    static String getContentType(String fileName) {
         if (fileName == null) return null;
         String lowerName = fileName.toLowerCase();
         if (lowerName.endsWith(".pdf")) {
@@ -282,7 +554,7 @@ public class CertificateResource {
         return null;
     }
 
-    private boolean isValidFileType(String contentType) {
+    static boolean isValidFileType(String contentType) {
         return contentType != null && (
                 contentType.equals("application/pdf") ||
                 contentType.equals("image/jpeg") ||
@@ -305,6 +577,41 @@ public class CertificateResource {
         public String credentialLink;
     }
 
+    public static class ImportResponse {
+        public int imported;
+        public int rejected;
+        public int failed;
+        public List<ImportEntryResponse> entries;
+
+        public ImportResponse(List<CertificateImportService.EntryResult> results) {
+            this.entries = new ArrayList<>(results.size());
+            for (CertificateImportService.EntryResult result : results) {
+                if (CertificateImportService.IMPORTED.equals(result.status)) {
+                    imported++;
+                } else if (CertificateImportService.REJECTED.equals(result.status)) {
+                    rejected++;
+                } else {
+                    failed++;
+                }
+                entries.add(new ImportEntryResponse(result));
+            }
+        }
+    }
+
+    public static class ImportEntryResponse {
+        public String name;
+        public String status;
+        public String message;
+        public CertificateDto certificate;
+
+        public ImportEntryResponse(CertificateImportService.EntryResult result) {
+            this.name = result.name;
+            this.status = result.status;
+            this.message = result.message;
+            this.certificate = result.certificate == null ? null : new CertificateDto(result.certificate);
+        }
+    }
+
     public static class ErrorResponse {
         public String message;
 
@@ -1,25 +1,35 @@
 package com.certhub.resource;
 
-import com.amazonaws.services.s3.model.S3Object;
 import com.certhub.dto.CertificateDto;
 import com.certhub.entity.Certificate;
+import com.certhub.service.CertificateFileService;
 import com.certhub.service.CertificateService;
+import com.certhub.service.RateLimited;
 import com.certhub.service.RecaptchaService;
+import com.certhub.service.RequestEvents;
 import com.certhub.service.S3Service;
+import com.certhub.service.ThumbnailService;
+import com.certhub.service.VirtualThreadDispatcher;
 
+import io.smallrye.common.annotation.Blocking;
 import jakarta.inject.Inject;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.core.StreamingOutput;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.concurrent.CompletionStage;
 
 @Path("/api/public")
+@RateLimited("public")
 @Produces(MediaType.APPLICATION_JSON)
 public class PublicResource {
 
+    @Inject
+    VirtualThreadDispatcher virtualThreadDispatcher;
+
     @Inject
     RecaptchaService recaptchaService;
 
@@ -29,10 +39,17 @@ public class PublicResource {
     @Inject
     CertificateService certificateService;
 
+    @Inject
+    CertificateFileService certificateFileService;
+
+    @Inject
+    ThumbnailService thumbnailService;
+
     @GET
     @Path("/certificate/{shareableId}")
     public Response getCertificate(@PathParam("shareableId") String shareableId) {
-        Certificate certificate = certificateService.findByShareableId(shareableId);
+        Certificate certificate = RequestEvents.lookup("/api/public/certificate/{shareableId}", shareableId,
+                () -> certificateService.findByShareableId(shareableId));
         if (certificate == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(new ErrorResponse("Certificate not found"))
@@ -44,78 +61,110 @@ public class PublicResource {
 
     @GET
     @Path("/certificate/{shareableId}/download")
+    @Blocking
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    public Response downloadCertificate(@PathParam("shareableId") String shareableId) {
-        Certificate certificate = certificateService.findByShareableId(shareableId);
-        if (certificate == null) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse("Certificate not found"))
-                    .build();
-        }
-
-        try {
-            S3Object s3Object = s3Service.getFile(certificate.s3Key);
-            InputStream inputStream = s3Object.getObjectContent();
-            
-            StreamingOutput stream = output -> {
-                try (InputStream input = inputStream) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = input.read(buffer)) != -1) {
-                        output.write(buffer, 0, bytesRead);
-                    }
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to stream file", e);
+    public CompletionStage<Response> downloadCertificate(@PathParam("shareableId") String shareableId,
+                                                         @Context Request request,
+                                                         @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/public/certificate/{shareableId}/download", shareableId,
+                    () -> certificateService.findByShareableId(shareableId));
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
+
+            try {
+                if (certificateFileService.redirectsPublicFiles()) {
+                    return certificateFileService.redirect(certificate, "attachment",
+                            "/api/public/certificate/{shareableId}/download", request);
                 }
-            };
-
-            return Response.ok(stream)
-                    .header("Content-Disposition", "attachment; filename=\"" + certificate.fileName + "\"")
-                    .header("Content-Type", certificate.fileType)
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Failed to download file"))
-                    .build();
-        }
+                return certificateFileService.serve(certificate, "attachment", true, request, headers);
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to download file"))
+                        .build();
+            }
+        });
     }
 
     @GET
     @Path("/certificate/{shareableId}/preview")
+    @Blocking
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    public Response previewCertificate(@PathParam("shareableId") String shareableId) {
-        Certificate certificate = certificateService.findByShareableId(shareableId);
-        if (certificate == null) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity(new ErrorResponse("Certificate not found"))
-                    .build();
-        }
-
-        try {
-            S3Object s3Object = s3Service.getFile(certificate.s3Key);
-            InputStream inputStream = s3Object.getObjectContent();
-            
-            StreamingOutput stream = output -> {
-                try (InputStream input = inputStream) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = input.read(buffer)) != -1) {
-                        output.write(buffer, 0, bytesRead);
-                    }
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to stream file", e);
+    public CompletionStage<Response> previewCertificate(@PathParam("shareableId") String shareableId,
+                                                        @Context Request request,
+                                                        @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/public/certificate/{shareableId}/preview", shareableId,
+                    () -> certificateService.findByShareableId(shareableId));
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
+
+            try {
+                if (certificateFileService.redirectsPublicFiles()) {
+                    return certificateFileService.redirect(certificate, "inline",
+                            "/api/public/certificate/{shareableId}/preview", request);
                 }
-            };
+                return certificateFileService.serve(certificate, "inline", true, request, headers);
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to preview file"))
+                        .build();
+            }
+        });
+    }
 
-            return Response.ok(stream)
-                    .header("Content-Type", certificate.fileType)
-                    .header("Content-Disposition", "inline; filename=\"" + certificate.fileName + "\"")
-                    .build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(new ErrorResponse("Failed to preview file"))
-                    .build();
-        }
+    @GET
+    @Path("/certificate/{shareableId}/thumbnail")
+    @Blocking
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public CompletionStage<Response> thumbnailCertificate(@PathParam("shareableId") String shareableId,
+                                                          @QueryParam("size") int size,
+                                                          @Context Request request,
+                                                          @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            Certificate certificate = RequestEvents.lookup("/api/public/certificate/{shareableId}/thumbnail", shareableId,
+                    () -> certificateService.findByShareableId(shareableId));
+            if (certificate == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Certificate not found"))
+                        .build();
+            }
+            if (!thumbnailService.supports(certificate)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("No thumbnail for this file type"))
+                        .build();
+            }
+
+            try {
+                String variantKey = thumbnailService.variantKey(certificate, size);
+                return certificateFileService.serveThumbnail(certificate, variantKey, true, request, headers);
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to load thumbnail"))
+                        .build();
+            }
+        });
     }
 
     public static class ErrorResponse {
@@ -0,0 +1,258 @@
+package com.certhub.resource;
+
+import com.amazonaws.SdkClientException;
+import com.certhub.dto.CertificateDto;
+import com.certhub.entity.Certificate;
+import com.certhub.entity.UploadSession;
+import com.certhub.service.CertificateService;
+import com.certhub.service.S3Service;
+import com.certhub.service.Secured;
+import com.certhub.service.ThumbnailService;
+import com.certhub.service.TransferMetrics;
+import com.certhub.service.UploadSessionService;
+import com.certhub.service.ValidatingUploadStream;
+import com.certhub.service.VirtualThreadDispatcher;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+@Path("/api/certificates/uploads")
+@Secured
+@Produces(MediaType.APPLICATION_JSON)
+public class UploadSessionResource {
+
+    @Inject
+    VirtualThreadDispatcher virtualThreadDispatcher;
+
+    @Inject
+    UploadSessionService uploadSessionService;
+
+    @Inject
+    CertificateService certificateService;
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    @Inject
+    ThumbnailService thumbnailService;
+
+    @POST
+    @Blocking
+    @Consumes(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> createUploadSession(UploadSessionRequest request) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            if (request.fileName == null || request.fileName.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File name is required"))
+                        .build();
+            }
+
+            if (CertificateResource.isTooLong(request.title) || CertificateResource.isTooLong(request.credentialLink)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Title and credential link must be at most "
+                                + CertificateResource.MAX_TEXT_LENGTH + " characters"))
+                        .build();
+            }
+
+            if (request.fileSize <= 0) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File size is required"))
+                        .build();
+            }
+
+            if (request.fileSize > CertificateResource.MAX_FILE_SIZE) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("File size exceeds 15MB limit"))
+                        .build();
+            }
+
+            String contentType = CertificateResource.getContentType(request.fileName);
+            if (!CertificateResource.isValidFileType(contentType)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Only PDF and JPEG files are allowed"))
+                        .build();
+            }
+
+            try {
+                UploadSession session = uploadSessionService.createSession(request.title, request.credentialLink,
+                        request.fileName, contentType, request.fileSize);
+                return Response.ok(new UploadSessionResponse(session)).build();
+            } catch (SdkClientException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to start upload"))
+                        .build();
+            }
+        });
+    }
+
+    @GET
+    @Path("/{sessionId}")
+    public Response getUploadSession(@PathParam("sessionId") String sessionId) {
+        UploadSession session = uploadSessionService.findById(sessionId);
+        if (session == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("Upload session not found"))
+                    .build();
+        }
+
+        return Response.ok(new UploadSessionResponse(session)).build();
+    }
+
+    @PUT
+    @Path("/{sessionId}/parts/{partNumber}")
+    @Blocking
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    public CompletionStage<Response> uploadPart(@PathParam("sessionId") String sessionId,
+                                                @PathParam("partNumber") int partNumber,
+                                                InputStream body,
+                                                @Context HttpHeaders headers) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            UploadSession session = uploadSessionService.findById(sessionId);
+            if (session == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Upload session not found"))
+                        .build();
+            }
+
+            if (partNumber < 1 || partNumber > session.totalParts) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Invalid part number"))
+                        .build();
+            }
+
+            long expectedSize = session.expectedPartSize(partNumber);
+            if (headers.getLength() != expectedSize) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Part " + partNumber + " must be " + expectedSize + " bytes"))
+                        .build();
+            }
+
+            LongTaskTimer.Sample upload = transferMetrics.uploadStarted();
+            try (InputStream partStream = partNumber == 1
+                    ? ValidatingUploadStream.open(body, session.fileType, expectedSize)
+                    : ValidatingUploadStream.bounded(body, expectedSize)) {
+                uploadSessionService.uploadPart(session, partNumber, partStream);
+                transferMetrics.received("/api/certificates/uploads/{sessionId}/parts/{partNumber}", expectedSize);
+                return Response.ok(new UploadSessionResponse(session)).build();
+            } catch (ValidatingUploadStream.UploadRejectedException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            } catch (S3Service.S3BusyException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.retryAfterSeconds)
+                        .entity(new ErrorResponse("Storage is busy, please retry"))
+                        .build();
+            } catch (SdkClientException | IOException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to upload part " + partNumber))
+                        .build();
+            } finally {
+                upload.stop();
+            }
+        });
+    }
+
+    @POST
+    @Path("/{sessionId}/complete")
+    @Blocking
+    public CompletionStage<Response> completeUploadSession(@PathParam("sessionId") String sessionId) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            UploadSession session = uploadSessionService.findById(sessionId);
+            if (session == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Upload session not found"))
+                        .build();
+            }
+
+            if (!session.isComplete()) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(new UploadSessionResponse(session))
+                        .build();
+            }
+
+            try {
+                if (!uploadSessionService.completeSession(session)) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(new ErrorResponse("Upload session not found"))
+                            .build();
+                }
+            } catch (SdkClientException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse("Failed to complete upload"))
+                        .build();
+            }
+
+            Certificate certificate = new Certificate(
+                    session.title,
+                    session.credentialLink,
+                    session.fileName,
+                    session.fileType,
+                    session.s3Key,
+                    "certhub-certificates",
+                    session.fileSize
+            );
+            certificateService.saveCertificate(certificate);
+            transferMetrics.uploaded(session.fileSize);
+            thumbnailService.schedule(certificate);
+
+            return Response.ok(new CertificateDto(certificate)).build();
+        });
+    }
+
+    @DELETE
+    @Path("/{sessionId}")
+    @Blocking
+    public CompletionStage<Response> abortUploadSession(@PathParam("sessionId") String sessionId) {
+        return virtualThreadDispatcher.dispatch(() -> {
+            UploadSession session = uploadSessionService.findById(sessionId);
+            if (session == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Upload session not found"))
+                        .build();
+            }
+
+            uploadSessionService.abortSession(session);
+            return Response.noContent().build();
+        });
+    }
+
+    public static class UploadSessionRequest {
+        public String title;
+        public String credentialLink;
+        public String fileName;
+        public long fileSize;
+    }
+
+    public static class UploadSessionResponse {
+        public String sessionId;
+        public long chunkSize;
+        public int totalParts;
+        public List<Integer> receivedParts;
+
+        public UploadSessionResponse(UploadSession session) {
+            this.sessionId = session.id;
+            this.chunkSize = session.chunkSize;
+            this.totalParts = session.totalParts;
+            this.receivedParts = new ArrayList<>(session.partETags.keySet());
+        }
+    }
+
+    public static class ErrorResponse {
+        public String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+    }
+}
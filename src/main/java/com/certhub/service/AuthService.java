@@ -1,68 +1,79 @@
 package com.certhub.service;
 
+import io.quarkus.scheduler.Scheduled;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.core.HttpHeaders;
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
 
 @ApplicationScoped
 public class AuthService {
 
-    @ConfigProperty(name = "app.admin.username")
-    String adminUsername;
+    public static final String SESSION_COOKIE = "sessionId";
 
-    @ConfigProperty(name = "app.admin.password")
-    String adminPassword;
+    @ConfigProperty(name = "app.session.ttl", defaultValue = "24h")
+    Duration sessionTtl;
 
-    // Simple in-memory session store
-    private final Map<String, SessionInfo> activeSessions = new ConcurrentHashMap<>();
+    // Expiry granularity; expired sessions are also rejected on lookup between reaper runs
+    @ConfigProperty(name = "app.session.reaper-interval", defaultValue = "10s")
+    Duration reaperInterval;
 
-    public boolean authenticate(String username, String password) {
-        return adminUsername.equals(username) && adminPassword.equals(password);
+    // Every authenticated request pushes the deadline out by another TTL
+    @ConfigProperty(name = "app.session.sliding", defaultValue = "false")
+    boolean slidingExpiration;
+
+    @Inject
+    CredentialStore credentialStore;
+
+    // Signed, self-contained cookies instead of in-memory sessions when app.session.mode=token
+    @Inject
+    SessionTokenService sessionTokens;
+
+    private SessionStore activeSessions;
+
+    @PostConstruct
+    void init() {
+        activeSessions = new SessionStore(sessionTtl.toMillis(), reaperInterval.toMillis(), slidingExpiration);
     }
 
-    public String createSession(String username) {
-        String sessionToken = UUID.randomUUID().toString();
-        SessionInfo sessionInfo = new SessionInfo(username, LocalDateTime.now().plusHours(24));
-        activeSessions.put(sessionToken, sessionInfo);
-        // Clean up expired sessions
-        cleanupExpiredSessions();
-        return sessionToken;
+    public CompletionStage<Boolean> authenticate(String username, String password) {
+        return credentialStore.verify(username, password);
     }
 
-    public boolean isAuthenticated() {
-        // For now, return true if any valid session exists
-        // In a real app, you'd check the current request's session token
-        cleanupExpiredSessions();
-        return !activeSessions.isEmpty();
+    public String createSession(String username) {
+        if (sessionTokens.isEnabled()) {
+            return sessionTokens.issue(username);
+        }
+        return activeSessions.create(username);
     }
 
     public boolean isAuthenticated(HttpHeaders headers) {
-        // Check for session token in cookies
-        String cookieHeader = headers.getHeaderString("Cookie");
-        if (cookieHeader != null) {
-            String[] cookies = cookieHeader.split(";");
-            for (String cookie : cookies) {
-                String[] parts = cookie.trim().split("=");
-                if (parts.length == 2 && "sessionId".equals(parts[0])) {
-                    return validateSession(parts[1]);
-                }
-            }
+        String sessionToken = getSessionToken(headers);
+        return sessionToken != null && validateSession(sessionToken);
+    }
+
+    public String getCurrentUser(HttpHeaders headers) {
+        String sessionToken = getSessionToken(headers);
+        return sessionToken == null ? null : resolveUser(sessionToken);
+    }
+
+    // The user a session token belongs to, or null if it is unknown, expired or revoked
+    public String resolveUser(String sessionToken) {
+        if (sessionTokens.isEnabled()) {
+            SessionTokenSigner.Claims claims = sessionTokens.verify(sessionToken);
+            return claims != null ? claims.username : null;
         }
-        return false;
+        SessionStore.Session session = activeSessions.get(sessionToken);
+        return session != null ? session.username : null;
     }
 
-    public String getCurrentUser() {
-        // Return the username from any active session
-        // In a real app, you'd get the session token from the request
-        return activeSessions.values().stream()
-                .findFirst()
-                .map(session -> session.username)
-                .orElse(null);
+    // In-memory sessions only; signed tokens are not tracked per session
+    public int activeSessionCount() {
+        return activeSessions.size();
     }
 
     public void logout() {
@@ -70,29 +81,33 @@ public class AuthService {
         activeSessions.clear();
     }
 
-    public boolean validateSession(String sessionToken) {
-        SessionInfo session = activeSessions.get(sessionToken);
-        if (session != null && session.expiresAt.isAfter(LocalDateTime.now())) {
-            return true;
+    // Ends only the caller's session; other sessions, the user's own included, stay signed in
+    public void logout(HttpHeaders headers) {
+        String sessionToken = getSessionToken(headers);
+        if (sessionToken == null) {
+            return;
         }
-        if (session != null) {
-            activeSessions.remove(sessionToken); // Remove expired session
+        if (sessionTokens.isEnabled()) {
+            // A signed token cannot be deleted, only revoked until it would have expired
+            sessionTokens.revoke(sessionToken);
+        } else {
+            activeSessions.remove(sessionToken);
         }
-        return false;
     }
 
-    private void cleanupExpiredSessions() {
-        LocalDateTime now = LocalDateTime.now();
-        activeSessions.entrySet().removeIf(entry -> entry.getValue().expiresAt.isBefore(now));
+    public boolean validateSession(String sessionToken) {
+        if (sessionTokens.isEnabled()) {
+            return sessionTokens.verify(sessionToken) != null;
+        }
+        return activeSessions.get(sessionToken) != null;
     }
 
-    private static class SessionInfo {
-        public final String username;
-        public final LocalDateTime expiresAt;
+    private String getSessionToken(HttpHeaders headers) {
+        return CookieScanner.value(headers.getHeaderString(HttpHeaders.COOKIE), SESSION_COOKIE);
+    }
 
-        public SessionInfo(String username, LocalDateTime expiresAt) {
-            this.username = username;
-            this.expiresAt = expiresAt;
-        }
+    @Scheduled(every = "${app.session.reaper-interval:10s}")
+    void reapExpiredSessions() {
+        activeSessions.expire();
     }
 }
\ No newline at end of file
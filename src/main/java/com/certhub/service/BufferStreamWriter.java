@@ -0,0 +1,239 @@
+package com.certhub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.MultiSubscriber;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.server.core.ResteasyReactiveRequestContext;
+import org.jboss.resteasy.reactive.server.core.ServerSerialisers;
+import org.jboss.resteasy.reactive.server.mapping.RuntimeResource;
+import org.jboss.resteasy.reactive.server.spi.ResteasyReactiveResourceInfo;
+import org.jboss.resteasy.reactive.server.spi.ServerMessageBodyWriter;
+import org.jboss.resteasy.reactive.server.spi.ServerRequestContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+// Writes a Multi<Buffer> response entity straight to the Vert.x response. One chunk is
+// requested at a time, and the next only once the socket's write queue has room, so a slow
+// client throttles the S3 read instead of piling chunks up in memory. A client that goes
+// away cancels the stream, which aborts the S3 download behind it. Written bytes are counted
+// per endpoint, and the stream stays on the active-transfer timer until it ends either way;
+// a stream slower than its threshold is also recorded as a RequestEvents.Stream JFR event.
+@Provider
+public class BufferStreamWriter implements ServerMessageBodyWriter<Multi<Buffer>> {
+
+    private static final Logger LOG = Logger.getLogger(BufferStreamWriter.class);
+
+    @Inject
+    DownloadStreamService downloadStreamService;
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, ResteasyReactiveResourceInfo target,
+                               MediaType mediaType) {
+        return isBufferMulti(type, genericType);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBufferMulti(type, genericType);
+    }
+
+    @Override
+    public void writeResponse(Multi<Buffer> body, Type genericType, ServerRequestContext context) {
+        ResteasyReactiveRequestContext requestContext = (ResteasyReactiveRequestContext) context;
+        // Status and headers go out with the first chunk written below, not through RESTEasy
+        ServerSerialisers.encodeResponseHeaders(requestContext);
+        context.serverResponse().setPreCommitListener(null);
+
+        RoutingContext routingContext = requestContext.serverRequest().unwrap(RoutingContext.class);
+        HttpServerResponse response = routingContext.response();
+        if (response.headers().get("Content-Length") == null) {
+            response.setChunked(true);
+        }
+        Context eventLoop = Vertx.currentContext() != null ? Vertx.currentContext() : routingContext.vertx().getOrCreateContext();
+
+        requestContext.suspend();
+        String endpoint = endpoint(requestContext.getTarget());
+        ChunkWriter writer = new ChunkWriter(requestContext, response, eventLoop, endpoint,
+                transferMetrics.bytesOut(endpoint));
+        context.serverResponse().addCloseHandler(writer::clientClosed);
+        body.subscribe().withSubscriber(writer);
+    }
+
+    @Override
+    public void writeTo(Multi<Buffer> body, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> headers, OutputStream output)
+            throws IOException {
+        // Taken when writer interceptors are involved; the blocking iterator requests one chunk at
+        // a time and closing the stream cancels the subscription, so the S3 read is aborted too
+        try (Stream<Buffer> chunks = body.subscribe().asStream(1, () -> new ArrayBlockingQueue<>(1))) {
+            Iterator<Buffer> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                Buffer chunk = iterator.next();
+                try {
+                    output.write(chunk.getBytes());
+                } finally {
+                    downloadStreamService.recycle(chunk);
+                }
+            }
+        }
+    }
+
+    // Other Multi entities (e.g. Multi<String> for SSE) are left to RESTEasy's own writers
+    static boolean isBufferMulti(Class<?> type, Type genericType) {
+        return Multi.class.isAssignableFrom(type)
+                && genericType instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments().length == 1
+                && parameterized.getActualTypeArguments()[0] == Buffer.class;
+    }
+
+    // The route template, e.g. /api/certificates/{id}/download
+    private static String endpoint(RuntimeResource target) {
+        if (target == null) {
+            return "unknown";
+        }
+        return (target.getClassPath() != null ? target.getClassPath().template : "") + target.getPath().template;
+    }
+
+    // Every callback is moved onto the request's event loop, so no state here is shared between threads
+    private class ChunkWriter implements MultiSubscriber<Buffer> {
+        private final ResteasyReactiveRequestContext requestContext;
+        private final HttpServerResponse response;
+        private final Context eventLoop;
+        private final String endpoint;
+        private final Counter bytesWritten;
+        private final LongTaskTimer.Sample stream;
+        private final RequestEvents.Stream event = new RequestEvents.Stream();
+        private long bytes;
+        private Flow.Subscription subscription;
+        private boolean done;
+        private boolean written;
+
+        ChunkWriter(ResteasyReactiveRequestContext requestContext, HttpServerResponse response, Context eventLoop,
+                    String endpoint, Counter bytesWritten) {
+            this.requestContext = requestContext;
+            this.response = response;
+            this.eventLoop = eventLoop;
+            this.endpoint = endpoint;
+            this.bytesWritten = bytesWritten;
+            this.stream = transferMetrics.downloadStarted();
+            event.begin();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            eventLoop.runOnContext(v -> {
+                this.subscription = subscription;
+                if (done) {
+                    subscription.cancel();
+                } else {
+                    subscription.request(1);
+                }
+            });
+        }
+
+        @Override
+        public void onItem(Buffer chunk) {
+            eventLoop.runOnContext(v -> {
+                if (done) {
+                    downloadStreamService.recycle(chunk);
+                    return;
+                }
+                written = true;
+                bytesWritten.increment(chunk.length());
+                bytes += chunk.length();
+                response.write(chunk).onComplete(result -> downloadStreamService.recycle(chunk));
+                if (response.writeQueueFull()) {
+                    response.drainHandler(drained -> requestNext());
+                } else {
+                    requestNext();
+                }
+            });
+        }
+
+        @Override
+        public void onCompletion() {
+            eventLoop.runOnContext(v -> {
+                if (!finish("completed")) {
+                    return;
+                }
+                requestContext.serverResponse().end();
+                requestContext.resume();
+            });
+        }
+
+        @Override
+        public void onFailure(Throwable failure) {
+            eventLoop.runOnContext(v -> {
+                if (!finish("failed")) {
+                    return;
+                }
+                if (!written) {
+                    // Nothing sent yet, so the usual error handling can still answer
+                    requestContext.resume(failure);
+                    return;
+                }
+                // Too late for an error status; cut the connection so the client sees a truncated body
+                LOG.warnf(failure, "Download failed after the response started");
+                response.reset();
+                requestContext.resume();
+            });
+        }
+
+        void clientClosed() {
+            eventLoop.runOnContext(v -> {
+                if (!finish("client-closed")) {
+                    return;
+                }
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+                requestContext.resume();
+            });
+        }
+
+        // True for the first terminal signal only
+        private boolean finish(String outcome) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            stream.stop();
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.bytes = bytes;
+                event.outcome = outcome;
+                event.commit();
+            }
+            return true;
+        }
+
+        private void requestNext() {
+            if (!done) {
+                subscription.request(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.certhub.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// One satisfiable "bytes=" range of an HTTP Range header, with inclusive bounds
+public class ByteRange {
+
+    // More ranges than this is treated as abuse and answered with the whole file
+    private static final int MAX_RANGES = 16;
+
+    public final long start;
+    public final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String contentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    // Returns null when the whole file should be served (no header, malformed or
+    // not worth honouring), and an empty list when no range can be satisfied
+    public static List<ByteRange> parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : header.substring("bytes=".length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    // Suffix range: the final N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix > 0 && size > 0) {
+                        ranges.add(new ByteRange(Math.max(0, size - suffix), size - 1));
+                    }
+                    continue;
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+                if (start < 0 || end < start) {
+                    return null;
+                }
+                if (start < size) {
+                    ranges.add(new ByteRange(start, Math.min(end, size - 1)));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        List<ByteRange> merged = coalesce(ranges);
+        if (merged.size() > MAX_RANGES) {
+            return null;
+        }
+        return merged;
+    }
+
+    // Overlapping and adjacent ranges are merged so each byte is fetched from S3 once
+    private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(range -> range.start));
+        List<ByteRange> merged = new ArrayList<>();
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+}
@@ -0,0 +1,118 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Compact binary form of a Certificate shared by the mutation log, snapshots and the
+// S3 sidecar objects used to rebuild the store from the bucket
+public final class CertificateCodec {
+
+    private static final byte STRING_NULL = 0;
+    private static final byte STRING_UTF8 = 1;
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+    private static final byte SIDECAR_VERSION = 1;
+
+    private CertificateCodec() {}
+
+    public static void write(Certificate certificate, DataOutput out) throws IOException {
+        out.writeLong(certificate.id);
+        writeString(certificate.title, out);
+        writeString(certificate.credentialLink, out);
+        writeString(certificate.fileName, out);
+        writeString(certificate.fileType, out);
+        writeString(certificate.s3Key, out);
+        writeString(certificate.s3Bucket, out);
+        out.writeLong(certificate.fileSize == null ? -1 : certificate.fileSize);
+        writeString(certificate.shareableId, out);
+        if (certificate.uploadedAt == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeLong(certificate.uploadedAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(certificate.uploadedAt.getNano());
+        }
+    }
+
+    public static Certificate read(DataInput in) throws IOException {
+        Certificate certificate = new Certificate();
+        certificate.id = in.readLong();
+        certificate.title = readString(in);
+        certificate.credentialLink = readString(in);
+        certificate.fileName = readString(in);
+        certificate.fileType = readString(in);
+        certificate.s3Key = readString(in);
+        certificate.s3Bucket = readString(in);
+        long fileSize = in.readLong();
+        certificate.fileSize = fileSize < 0 ? null : fileSize;
+        certificate.shareableId = readString(in);
+        if (in.readBoolean()) {
+            long epochSecond = in.readLong();
+            int nano = in.readInt();
+            certificate.uploadedAt = LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+        return certificate;
+    }
+
+    // Body of an S3 sidecar object: a version byte and the binary form. User metadata would
+    // be capped at 2KB of headers, which a few hundred non-Latin characters already exceed.
+    public static byte[] toBytes(Certificate certificate) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(SIDECAR_VERSION);
+            write(certificate, out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Certificate fromBytes(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte version = in.readByte();
+        if (version != SIDECAR_VERSION) {
+            throw new IOException("Unknown sidecar version " + version);
+        }
+        return read(in);
+    }
+
+    // Strings are UTF-8 behind an int length; writeUTF would cap them at 64KB encoded
+    private static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(STRING_NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(STRING_UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte marker = in.readByte();
+        if (marker == STRING_NULL) {
+            return null;
+        }
+        if (marker != STRING_UTF8) {
+            throw new IOException("Unknown string marker " + marker);
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Implausible string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// Position in the newest-first listing order (uploadedAt, then id, both descending).
+// Doubles as the skip-list key and, encoded, as the opaque "after" cursor clients send back.
+public final class CertificateCursor implements Comparable<CertificateCursor> {
+
+    private static final LocalDateTime NO_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    final LocalDateTime uploadedAt;
+    final long id;
+
+    CertificateCursor(LocalDateTime uploadedAt, long id) {
+        this.uploadedAt = uploadedAt;
+        this.id = id;
+    }
+
+    public static CertificateCursor of(Certificate certificate) {
+        return new CertificateCursor(certificate.uploadedAt == null ? NO_DATE : certificate.uploadedAt, certificate.id);
+    }
+
+    // Sorts before every certificate uploaded at or before the given time
+    static CertificateCursor newestAt(LocalDateTime uploadedAt) {
+        return new CertificateCursor(uploadedAt, Long.MAX_VALUE);
+    }
+
+    // Sorts after every certificate uploaded at or after the given time
+    static CertificateCursor oldestAt(LocalDateTime uploadedAt) {
+        return new CertificateCursor(uploadedAt, Long.MIN_VALUE);
+    }
+
+    public String encode() {
+        String raw = uploadedAt.toEpochSecond(ZoneOffset.UTC) + "." + uploadedAt.getNano() + "." + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static CertificateCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split("\\.");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime uploadedAt = LocalDateTime.ofEpochSecond(Long.parseLong(parts[0]),
+                    Integer.parseInt(parts[1]), ZoneOffset.UTC);
+            return new CertificateCursor(uploadedAt, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    @Override
+    public int compareTo(CertificateCursor other) {
+        int byDate = other.uploadedAt.compareTo(uploadedAt);
+        return byDate != 0 ? byDate : Long.compare(other.id, id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CertificateCursor)) {
+            return false;
+        }
+        CertificateCursor other = (CertificateCursor) o;
+        return id == other.id && uploadedAt.equals(other.uploadedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * uploadedAt.hashCode() + Long.hashCode(id);
+    }
+}
@@ -0,0 +1,266 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.smallrye.mutiny.Multi;
+import io.vertx.core.buffer.Buffer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.PathPart;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// Builds the preview/download responses for certificate files, including
+// Range requests so viewers can fetch parts of a file without the rest
+@ApplicationScoped
+public class CertificateFileService {
+
+    @ConfigProperty(name = "app.files.cache-max-age", defaultValue = "86400")
+    int cacheMaxAge;
+
+    @Inject
+    S3Service s3Service;
+
+    @ConfigProperty(name = "app.public.presigned-redirect", defaultValue = "false")
+    boolean presignedRedirect;
+
+    @Inject
+    ObjectCacheService objectCacheService;
+
+    @Inject
+    PresignedUrlService presignedUrlService;
+
+    @Inject
+    DownloadStreamService downloadStreamService;
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    // Stored objects are never overwritten, so validators come from the entity
+    // and a revalidation is answered without touching S3
+    public Response serve(Certificate certificate, String disposition, boolean sharedCache,
+                          Request request, HttpHeaders headers) {
+        EntityTag eTag = entityTag(certificate);
+        Date lastModified = lastModified(certificate);
+        String cacheControl = cacheControl(sharedCache);
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+        if (notModified != null) {
+            return notModified
+                    .tag(eTag)
+                    .header("Cache-Control", cacheControl)
+                    .lastModified(lastModified)
+                    .build();
+        }
+
+        List<ByteRange> ranges = certificate.fileSize == null || !ifRangeMatches(headers, eTag, lastModified)
+                ? null
+                : ByteRange.parse(headers.getHeaderString("Range"), certificate.fileSize);
+
+        if (ranges == null) {
+            // Cache hits go out through Vert.x sendFile (FileChannel.transferTo), no user-space copy.
+            // The S3 GET is only made once the body is subscribed to, which a HEAD never does.
+            Path cached = cachedOrFill(certificate.s3Key, request);
+            Object entity = cached != null
+                    ? cached
+                    : DownloadStreamService.entity(downloadStreamService.fromStream(() ->
+                            s3Service.getFile(certificate.s3Key).getObjectContent()));
+            Response.ResponseBuilder builder = Response.ok(entity)
+                    .header("Content-Type", certificate.fileType)
+                    .header("Content-Disposition", contentDisposition(certificate, disposition))
+                    .header("Accept-Ranges", "bytes")
+                    .tag(eTag)
+                    .lastModified(lastModified)
+                    .header("Cache-Control", cacheControl);
+            if (certificate.fileSize != null) {
+                builder.header("Content-Length", certificate.fileSize);
+            }
+            return builder.build();
+        }
+
+        if (ranges.isEmpty()) {
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + certificate.fileSize)
+                    .header("Accept-Ranges", "bytes")
+                    .build();
+        }
+
+        Path cached = objectCacheService.getCachedFile(certificate.s3Key);
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            Object entity = cached != null
+                    ? new PathPart(cached, range.start, range.length())
+                    : DownloadStreamService.entity(downloadStreamService.fromStream(() ->
+                            s3Service.getFileRange(certificate.s3Key, range.start, range.end).getObjectContent()));
+            return Response.status(Response.Status.PARTIAL_CONTENT)
+                    .entity(entity)
+                    .header("Content-Type", certificate.fileType)
+                    .header("Content-Disposition", contentDisposition(certificate, disposition))
+                    .header("Accept-Ranges", "bytes")
+                    .header("Content-Range", range.contentRange(certificate.fileSize))
+                    .header("Content-Length", range.length())
+                    .tag(eTag)
+                    .lastModified(lastModified)
+                    .header("Cache-Control", cacheControl)
+                    .build();
+        }
+
+        return multipartByteRanges(certificate, disposition, ranges, cached)
+                .tag(eTag)
+                .lastModified(lastModified)
+                .header("Cache-Control", cacheControl)
+                .build();
+    }
+
+    // A stored thumbnail variant. While there is none yet an image original goes out instead,
+    // marked no-store so the client asks again and picks the thumbnail up once it exists; for a
+    // PDF, which an <img> cannot show, the client is told to retry shortly.
+    public Response serveThumbnail(Certificate certificate, String variantKey, boolean sharedCache,
+                                   Request request, HttpHeaders headers) {
+        if (variantKey == null && ThumbnailService.isPdf(certificate)) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", 5)
+                    .header("Cache-Control", "no-store")
+                    .build();
+        }
+        if (variantKey == null) {
+            return Response.fromResponse(serve(certificate, "inline", sharedCache, request, headers))
+                    .header("Cache-Control", null)
+                    .header("Cache-Control", "no-store")
+                    .build();
+        }
+        EntityTag eTag = new EntityTag(UUID.nameUUIDFromBytes(variantKey.getBytes(StandardCharsets.UTF_8)).toString());
+        Date lastModified = lastModified(certificate);
+        String cacheControl = cacheControl(sharedCache);
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+        if (notModified != null) {
+            return notModified
+                    .tag(eTag)
+                    .header("Cache-Control", cacheControl)
+                    .lastModified(lastModified)
+                    .build();
+        }
+
+        Path cached = cachedOrFill(variantKey, request);
+        Object entity = cached != null
+                ? cached
+                : DownloadStreamService.entity(downloadStreamService.fromStream(() ->
+                        s3Service.getFile(variantKey).getObjectContent()));
+        return Response.ok(entity)
+                .header("Content-Type", ThumbnailService.CONTENT_TYPE)
+                .tag(eTag)
+                .lastModified(lastModified)
+                .header("Cache-Control", cacheControl)
+                .build();
+    }
+
+    public boolean redirectsPublicFiles() {
+        return presignedRedirect;
+    }
+
+    // Sends the client straight to S3; Range requests are then answered by S3 itself. The object
+    // is counted against the endpoint that handed it out, apart from the bytes we send ourselves.
+    public Response redirect(Certificate certificate, String disposition, String endpoint, Request request) {
+        PresignedUrlService.PresignedUrl url = presignedUrlService.getUrl(certificate, disposition);
+        if (certificate.fileSize != null && !HttpMethod.HEAD.equals(request.getMethod())) {
+            transferMetrics.redirected(endpoint, certificate.fileSize);
+        }
+        return Response.temporaryRedirect(url.uri)
+                .header("Cache-Control", "private, max-age=" + presignedUrlService.cacheableSeconds(url))
+                .build();
+    }
+
+    // Multiple ranges go out as multipart/byteranges, each part backed by its own
+    // ranged GET (made when the part's turn comes) unless the whole object is already
+    // in the local cache
+    private Response.ResponseBuilder multipartByteRanges(Certificate certificate, String disposition,
+                                                         List<ByteRange> ranges, Path cached) {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<Multi<Buffer>> parts = new ArrayList<>();
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + certificate.fileType + "\r\n"
+                    + "Content-Range: " + range.contentRange(certificate.fileSize) + "\r\n\r\n";
+            parts.add(downloadStreamService.fromText(partHeader));
+            parts.add(cached != null
+                    ? downloadStreamService.fromFile(cached, range.start, range.length())
+                    : downloadStreamService.fromStream(() ->
+                            s3Service.getFileRange(certificate.s3Key, range.start, range.end).getObjectContent()));
+            contentLength += partHeader.length() + range.length();
+        }
+        String closing = "\r\n--" + boundary + "--\r\n";
+        parts.add(downloadStreamService.fromText(closing));
+        contentLength += closing.length();
+        Multi<Buffer> body = downloadStreamService.concat(parts);
+
+        return Response.status(Response.Status.PARTIAL_CONTENT)
+                .entity(DownloadStreamService.entity(body))
+                .header("Content-Type", "multipart/byteranges; boundary=" + boundary)
+                .header("Content-Disposition", contentDisposition(certificate, disposition))
+                .header("Accept-Ranges", "bytes")
+                .header("Content-Length", contentLength);
+    }
+
+    // A miss is streamed from S3 while the cache fills in the background; a HEAD sends no body,
+    // so it has no reason to pull the object in
+    private Path cachedOrFill(String key, Request request) {
+        Path cached = objectCacheService.getCachedFile(key);
+        if (cached == null && !HttpMethod.HEAD.equals(request.getMethod())) {
+            objectCacheService.fillAsync(key);
+        }
+        return cached;
+    }
+
+    // A Range is only honoured if the client's copy (If-Range) is still current
+    private boolean ifRangeMatches(HttpHeaders headers, EntityTag eTag, Date lastModified) {
+        String ifRange = headers.getHeaderString("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals("\"" + eTag.getValue() + "\"");
+        }
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                    .equals(lastModified.toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private EntityTag entityTag(Certificate certificate) {
+        return new EntityTag(UUID.nameUUIDFromBytes(certificate.s3Key.getBytes(StandardCharsets.UTF_8)).toString());
+    }
+
+    private Date lastModified(Certificate certificate) {
+        // HTTP dates only carry whole seconds
+        return Date.from(certificate.uploadedAt.truncatedTo(ChronoUnit.SECONDS)
+                .atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // Share links may be cached by proxies, dashboard files only by the browser
+    private String cacheControl(boolean sharedCache) {
+        return (sharedCache ? "public" : "private") + ", max-age=" + cacheMaxAge + ", immutable";
+    }
+
+    private String contentDisposition(Certificate certificate, String disposition) {
+        return disposition + "; filename=\"" + certificate.fileName + "\"";
+    }
+}
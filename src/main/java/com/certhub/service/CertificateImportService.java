@@ -0,0 +1,310 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.virtual.threads.VirtualThreads;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Imports a ZIP of certificate files. Entries are read one at a time off the request body;
+// each valid one is held in memory only until its S3 upload finishes, and at most
+// app.import.parallel-uploads of those are in flight, so memory stays bounded by
+// parallel-uploads x the file size limit whatever the archive holds. Reading stops at
+// max-entries files, and an archive that inflates past max-total-size is refused outright.
+// Everything that uploaded is saved in one CertificateService batch once the archive has been read.
+@ApplicationScoped
+public class CertificateImportService {
+
+    // Optional [{"file": "aws.pdf", "title": "...", "credentialLink": "..."}], anywhere in the archive
+    static final String MANIFEST = "manifest.json";
+    static final long MAX_MANIFEST_SIZE = 1024 * 1024;
+
+    public static final String IMPORTED = "imported";
+    public static final String REJECTED = "rejected";
+    public static final String FAILED = "failed";
+
+    private static final Logger LOG = Logger.getLogger(CertificateImportService.class);
+
+    @ConfigProperty(name = "app.import.parallel-uploads", defaultValue = "4")
+    int parallelUploads;
+
+    @ConfigProperty(name = "app.import.max-entries", defaultValue = "200")
+    int maxEntries;
+
+    // Counts every inflated byte, including entries that are skipped or rejected
+    @ConfigProperty(name = "app.import.max-total-size", defaultValue = "256M")
+    MemorySize maxTotalSize;
+
+    @Inject
+    S3Service s3Service;
+
+    @Inject
+    CertificateService certificateService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    // contentTypes maps a file name to its content type, or null when the type is not accepted;
+    // tooLong applies the same text limits as a single upload to titles and credential links.
+    // Throws if the archive itself cannot be read (ArchiveTooLargeException if it inflates past
+    // max-total-size); objects uploaded up to then are deleted.
+    public List<EntryResult> importArchive(InputStream archive, Function<String, String> contentTypes,
+                                           Predicate<String> tooLong, long maxFileSize) throws IOException {
+        List<EntryResult> results = new ArrayList<>();
+        List<CompletableFuture<Void>> uploads = new ArrayList<>();
+        Map<String, ManifestEntry> manifest = new HashMap<>();
+        Semaphore inFlight = new Semaphore(parallelUploads);
+        int files = 0;
+
+        try {
+            ZipInputStream zip = new BoundedZipInputStream(archive, maxTotalSize.asLongValue());
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                String fileName = baseName(name);
+                if (entry.isDirectory() || name.startsWith("__MACOSX/") || fileName.startsWith(".")) {
+                    continue;
+                }
+                if (fileName.equalsIgnoreCase(MANIFEST)) {
+                    EntryResult manifestError = readManifest(zip, name, manifest);
+                    if (manifestError != null) {
+                        results.add(manifestError);
+                    }
+                    continue;
+                }
+
+                if (++files > maxEntries) {
+                    // The rest of the archive is not read at all
+                    results.add(new EntryResult(name, fileName)
+                            .reject("Archive has more than " + maxEntries + " files; the rest were not imported"));
+                    break;
+                }
+                EntryResult result = new EntryResult(name, fileName);
+                results.add(result);
+                result.contentType = contentTypes.apply(fileName);
+                if (result.contentType == null) {
+                    result.reject("Only PDF and JPEG files are allowed");
+                    continue;
+                }
+                if (entry.getSize() > maxFileSize) {
+                    result.reject("File size exceeds the allowed size");
+                    continue;
+                }
+
+                // The permit is taken before the entry is buffered, so a slow S3 holds back
+                // reading the archive instead of piling files up on the heap
+                acquire(inFlight);
+                byte[] data;
+                try {
+                    data = ValidatingUploadStream.open(zip, result.contentType, maxFileSize).readAllBytes();
+                } catch (ValidatingUploadStream.UploadRejectedException e) {
+                    inFlight.release();
+                    result.reject(e.getMessage());
+                    continue;
+                } catch (IOException | RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                result.size = data.length;
+                uploads.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        upload(result, data);
+                    } finally {
+                        inFlight.release();
+                    }
+                }, virtualThreads));
+            }
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+            deleteUploaded(results);
+            throw e;
+        }
+        CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+
+        List<Certificate> batch = new ArrayList<>();
+        for (EntryResult result : results) {
+            if (result.s3Key == null) {
+                continue;
+            }
+            ManifestEntry details = manifest.getOrDefault(result.name, manifest.get(result.fileName));
+            String title = details != null && details.title != null ? details.title : defaultTitle(result.fileName);
+            String credentialLink = details != null ? details.credentialLink : null;
+            if (tooLong.test(title) || tooLong.test(credentialLink)) {
+                // The manifest may come last in the archive, so the file is already in S3
+                delete(result.s3Key);
+                result.s3Key = null;
+                result.reject("Title or credential link is too long");
+                continue;
+            }
+            result.certificate = new Certificate(
+                    title,
+                    credentialLink,
+                    result.fileName,
+                    result.contentType,
+                    result.s3Key,
+                    "certhub-certificates",
+                    result.size
+            );
+            batch.add(result.certificate);
+        }
+        if (!batch.isEmpty()) {
+            try {
+                certificateService.saveCertificates(batch);
+            } catch (RuntimeException e) {
+                deleteUploaded(results);
+                throw e;
+            }
+        }
+        for (EntryResult result : results) {
+            if (result.certificate != null) {
+                result.status = IMPORTED;
+            }
+        }
+        return results;
+    }
+
+    private void upload(EntryResult result, byte[] data) {
+        try (InputStream fileStream = new ByteArrayInputStream(data)) {
+            result.s3Key = s3Service.uploadFile(fileStream, result.fileName, result.contentType, data.length);
+        } catch (S3Service.S3BusyException e) {
+            result.fail("Storage is busy, please retry");
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf(e, "Failed to upload %s from an import", result.name);
+            result.fail("Failed to upload file");
+        }
+    }
+
+    private EntryResult readManifest(ZipInputStream zip, String name, Map<String, ManifestEntry> manifest)
+            throws IOException {
+        try {
+            byte[] json = ValidatingUploadStream.bounded(zip, MAX_MANIFEST_SIZE).readAllBytes();
+            for (ManifestEntry details : objectMapper.readValue(json, ManifestEntry[].class)) {
+                if (details != null && details.file != null) {
+                    manifest.put(details.file, details);
+                }
+            }
+            return null;
+        } catch (ValidatingUploadStream.UploadRejectedException e) {
+            return new EntryResult(name, baseName(name)).reject("Manifest exceeds 1MB");
+        } catch (JsonProcessingException e) {
+            return new EntryResult(name, baseName(name)).reject("Manifest is not a valid JSON list");
+        }
+    }
+
+    private void deleteUploaded(List<EntryResult> results) {
+        for (EntryResult result : results) {
+            if (result.s3Key != null) {
+                delete(result.s3Key);
+            }
+        }
+    }
+
+    private void delete(String s3Key) {
+        try {
+            s3Service.deleteFile(s3Key);
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Failed to delete %s left behind by an import", s3Key);
+        }
+    }
+
+    private static void acquire(Semaphore inFlight) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        }
+    }
+
+    static String baseName(String entryName) {
+        int slash = Math.max(entryName.lastIndexOf('/'), entryName.lastIndexOf('\\'));
+        return entryName.substring(slash + 1);
+    }
+
+    static String defaultTitle(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    // ZipInputStream skips the rest of an entry by reading it, so every inflated byte passes through here
+    private static class BoundedZipInputStream extends ZipInputStream {
+        private final long maxBytes;
+        private long inflated;
+
+        BoundedZipInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0 && (inflated += n) > maxBytes) {
+                throw new ArchiveTooLargeException("Archive expands to more than " + maxBytes + " bytes");
+            }
+            return n;
+        }
+    }
+
+    public static class ArchiveTooLargeException extends IOException {
+        public ArchiveTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    public static class EntryResult {
+        public final String name;
+        public final String fileName;
+        public String status;
+        public String message;
+        public Certificate certificate;
+        String contentType;
+        String s3Key;
+        long size;
+
+        EntryResult(String name, String fileName) {
+            this.name = name;
+            this.fileName = fileName;
+        }
+
+        EntryResult reject(String message) {
+            this.status = REJECTED;
+            this.message = message;
+            return this;
+        }
+
+        void fail(String message) {
+            this.status = FAILED;
+            this.message = message;
+        }
+    }
+
+    public static class ManifestEntry {
+        public String file;
+        public String title;
+        public String credentialLink;
+    }
+}
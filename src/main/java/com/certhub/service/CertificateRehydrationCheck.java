@@ -0,0 +1,27 @@
+package com.certhub.service;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+// Keeps the node out of rotation until the certificate store has been rebuilt
+@Readiness
+@ApplicationScoped
+public class CertificateRehydrationCheck implements HealthCheck {
+
+    @Inject
+    CertificateRehydrationService rehydrationService;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("certificate-rehydration")
+                .status(rehydrationService.isFinished())
+                .withData("restored", rehydrationService.getRestoredCount())
+                .withData("unreadable", rehydrationService.getUnreadableCount())
+                .withData("elapsedMillis", rehydrationService.getElapsedMillis())
+                .build();
+    }
+}
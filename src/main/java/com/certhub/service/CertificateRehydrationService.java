@@ -0,0 +1,163 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Rebuilds the certificate store from the S3 metadata sidecars when a node starts
+// with nothing local. Keys are listed page by page while a bounded pool fetches them.
+// The listing and every fetch are retried with backoff; if anything still cannot be read,
+// nothing is restored and readiness stays down, since a partial store would be persisted
+// and never rebuilt again.
+@ApplicationScoped
+public class CertificateRehydrationService {
+
+    private static final Logger LOG = Logger.getLogger(CertificateRehydrationService.class);
+
+    @ConfigProperty(name = "app.rehydrate.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.rehydrate.parallelism", defaultValue = "32")
+    int parallelism;
+
+    @ConfigProperty(name = "app.rehydrate.attempts", defaultValue = "5")
+    int attempts;
+
+    // Doubles after every failed attempt
+    @ConfigProperty(name = "app.rehydrate.backoff", defaultValue = "500ms")
+    Duration backoff;
+
+    @Inject
+    CertificateService certificateService;
+
+    @Inject
+    S3Service s3Service;
+
+    private volatile boolean finished;
+    private volatile int unreadableCount;
+    private volatile int restoredCount;
+    private volatile long elapsedMillis;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || !certificateService.isEmpty()) {
+            finished = true;
+            return;
+        }
+        // Let HTTP come up (liveness) while readiness waits for the rebuild
+        Thread worker = new Thread(this::rehydrate, "certificate-rehydration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void rehydrate() {
+        long start = System.nanoTime();
+        Queue<Certificate> restored = new ConcurrentLinkedQueue<>();
+        // A retried listing starts over, so keys already handed to the pool are skipped
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger failures = new AtomicInteger();
+        boolean complete = false;
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "certificate-rehydration-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Caps queued fetches so the listing never runs far ahead of the pool
+        Semaphore inFlight = new Semaphore(parallelism * 4);
+
+        try {
+            withRetries("list certificate metadata", () -> {
+                s3Service.listCertificateMetadataKeys(keys -> {
+                    for (String key : keys) {
+                        if (!seen.add(key)) {
+                            continue;
+                        }
+                        inFlight.acquireUninterruptibly();
+                        pool.execute(() -> {
+                            try {
+                                restored.add(withRetries(key, () -> s3Service.getCertificateMetadata(key)));
+                            } catch (RuntimeException | InterruptedException e) {
+                                failures.incrementAndGet();
+                                LOG.errorf(e, "Metadata object %s could not be read", key);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    }
+                });
+                return null;
+            });
+            pool.shutdown();
+            complete = pool.awaitTermination(10, TimeUnit.MINUTES);
+            if (!complete) {
+                LOG.error("Timed out fetching certificate metadata from S3");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOG.error("Failed to list certificate metadata in S3", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        unreadableCount = failures.get();
+        if (!complete || unreadableCount > 0) {
+            LOG.errorf("Certificate rehydration failed after %d ms (%d unreadable); nothing was restored and "
+                    + "the node stays unready until it is restarted", elapsedMillis, unreadableCount);
+            return;
+        }
+        certificateService.restoreCertificates(restored);
+        restoredCount = restored.size();
+        finished = true;
+        LOG.infof("Rehydrated %d certificates from S3 in %d ms", restoredCount, elapsedMillis);
+    }
+
+    private <T> T withRetries(String what, Supplier<T> call) throws InterruptedException {
+        long delay = backoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                LOG.warnf("Attempt %d of %d to %s failed, retrying in %d ms: %s",
+                        attempt, attempts, what, delay, e.toString());
+            }
+            Thread.sleep(delay);
+            delay *= 2;
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getUnreadableCount() {
+        return unreadableCount;
+    }
+
+    public int getRestoredCount() {
+        return restoredCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,377 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+
+import java.net.URI;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// Inverted index over title, file name and credential-link host. Terms live in a sorted
+// map so a prefix query is a range scan. Each document gets a dense ordinal and every term
+// keeps an ascending int[] of ordinals, so multi-word queries are array intersections.
+// Writers are serialized by CertificateService; readers never lock.
+//
+// An update gets a fresh ordinal and the old one is marked DEAD. Once dead ordinals
+// outnumber the live documents, the live ones are renumbered densely into a new
+// generation, which readers pick up in a single volatile read.
+public class CertificateSearchIndex {
+
+    private static final int TITLE_WEIGHT = 4;
+    private static final int FILE_NAME_WEIGHT = 2;
+    private static final int HOST_WEIGHT = 1;
+    private static final long DEAD = Long.MIN_VALUE;
+    private static final int MIN_DEAD_BEFORE_RENUMBER = 1024;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private volatile Generation generation = new Generation(MIN_DEAD_BEFORE_RENUMBER);
+    private int deadOrdinals;
+
+    public void add(Certificate certificate) {
+        remove(certificate.id);
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, certificate.title, TITLE_WEIGHT);
+        addTerms(terms, stripExtension(certificate.fileName), FILE_NAME_WEIGHT);
+        addTerms(terms, host(certificate.credentialLink), HOST_WEIGHT);
+
+        Generation current = generation;
+        int ordinal = current.assign(certificate.id);
+        String[] documentTerms = new String[terms.size()];
+        byte[] weights = new byte[terms.size()];
+        int t = 0;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            documentTerms[t] = term.getKey();
+            weights[t++] = term.getValue().byteValue();
+            current.append(term.getKey(), ordinal, term.getValue());
+        }
+        documents.put(certificate.id, new Document(ordinal, documentTerms, weights));
+    }
+
+    public void remove(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        Generation current = generation;
+        long[] ids = current.idByOrdinal;
+        ids[document.ordinal] = DEAD;
+        for (String term : document.terms) {
+            Postings termPostings = current.postings.get(term);
+            if (termPostings != null && termPostings.markDead(ids) == 0) {
+                current.postings.remove(term);
+            }
+        }
+        if (++deadOrdinals > Math.max(MIN_DEAD_BEFORE_RENUMBER, documents.size())) {
+            renumber();
+        }
+    }
+
+    // Every query token must match a term exactly or as a prefix. Exact matches score
+    // triple; results are ordered by score, then newest id first.
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Generation current = generation;
+        Matches[] matches = new Matches[tokens.size()];
+        for (int t = 0; t < matches.length; t++) {
+            matches[t] = match(current.postings, tokens.get(t));
+            if (matches[t].size == 0) {
+                return new ArrayList<>();
+            }
+        }
+        // Read after the postings so every ordinal seen above has its id
+        long[] ids = current.idByOrdinal;
+
+        // Walk the smallest list and gallop through the others
+        Arrays.sort(matches, Comparator.comparingInt(m -> m.size));
+        Matches driver = matches[0];
+        int[] positions = new int[matches.length];
+
+        // Keeps the best `limit` hits with the weakest one at the head
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1,
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        candidates:
+        for (int i = 0; i < driver.size; i++) {
+            int ordinal = driver.ordinals[i];
+            long score = driver.scores[i];
+            for (int m = 1; m < matches.length; m++) {
+                int position = matches[m].seek(positions[m], ordinal);
+                positions[m] = position;
+                if (position == matches[m].size) {
+                    break candidates;
+                }
+                if (matches[m].ordinals[position] != ordinal) {
+                    continue candidates;
+                }
+                score += matches[m].scores[position];
+            }
+            long id = ids[ordinal];
+            if (id == DEAD) {
+                continue;
+            }
+            // Most candidates lose to the current k-th hit; skip them without allocating
+            if (top.size() == limit) {
+                long[] weakest = top.peek();
+                if (score < weakest[0] || (score == weakest[0] && id < weakest[1])) {
+                    continue;
+                }
+                top.poll();
+            }
+            top.offer(new long[] {score, id});
+        }
+
+        Long[] results = new Long[top.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = top.poll()[1];
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    public int termCount() {
+        return generation.postings.size();
+    }
+
+    // Slots held for ordinals, live and dead
+    int ordinalCapacity() {
+        return generation.idByOrdinal.length;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : SEPARATORS.split(folded.toLowerCase())) {
+            if (!token.isEmpty() && !tokens.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Union of every term starting with the token, ascending by ordinal with the best score per document.
+    // A k-way merge over the terms' postings, so a short prefix spanning thousands of terms costs
+    // n log k rather than a pass over the growing union for every term.
+    private static Matches match(NavigableMap<String, Postings> postings, String token) {
+        NavigableMap<String, Postings> range = postings.subMap(token, true, token + Character.MAX_VALUE, false);
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Comparator.comparingInt(Cursor::ordinal));
+        int total = 0;
+        for (Map.Entry<String, Postings> term : range.entrySet()) {
+            Slice slice = term.getValue().slice;
+            if (slice.size > 0) {
+                heap.add(new Cursor(slice, term.getKey().length() == token.length() ? 3 : 1));
+                total += slice.size;
+            }
+        }
+
+        int[] ordinals = new int[total];
+        int[] scores = new int[total];
+        int n = 0;
+        while (!heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            int ordinal = cursor.ordinal();
+            int score = cursor.slice.weights[cursor.position] * cursor.factor;
+            if (n > 0 && ordinals[n - 1] == ordinal) {
+                scores[n - 1] = Math.max(scores[n - 1], score);
+            } else {
+                ordinals[n] = ordinal;
+                scores[n++] = score;
+            }
+            if (++cursor.position < cursor.slice.size) {
+                heap.add(cursor);
+            }
+        }
+        return new Matches(ordinals, scores, n);
+    }
+
+    // Copies the live documents into a fresh generation with dense ordinals; the old
+    // generation stays intact for readers still walking it
+    private void renumber() {
+        List<Map.Entry<Long, Document>> live = new ArrayList<>(documents.entrySet());
+        Generation next = new Generation(Math.max(MIN_DEAD_BEFORE_RENUMBER, Integer.highestOneBit(live.size()) * 2));
+        for (Map.Entry<Long, Document> entry : live) {
+            Document document = entry.getValue();
+            int ordinal = next.assign(entry.getKey());
+            for (int t = 0; t < document.terms.length; t++) {
+                next.append(document.terms[t], ordinal, document.weights[t]);
+            }
+            documents.put(entry.getKey(), new Document(ordinal, document.terms, document.weights));
+        }
+        generation = next;
+        deadOrdinals = 0;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    private static String stripExtension(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static String host(String link) {
+        if (link == null || link.isBlank()) {
+            return null;
+        }
+        try {
+            String host = URI.create(link.trim()).getHost();
+            return host == null || !host.startsWith("www.") ? host : host.substring(4);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class Document {
+        final int ordinal;
+        final String[] terms;
+        final byte[] weights;
+
+        Document(int ordinal, String[] terms, byte[] weights) {
+            this.ordinal = ordinal;
+            this.terms = terms;
+            this.weights = weights;
+        }
+    }
+
+    // Postings plus the ordinal-to-id table they refer to, replaced together on renumbering
+    private static class Generation {
+        final ConcurrentSkipListMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+        volatile long[] idByOrdinal;
+        private int nextOrdinal;
+
+        Generation(int capacity) {
+            this.idByOrdinal = new long[capacity];
+        }
+
+        int assign(long id) {
+            int ordinal = nextOrdinal++;
+            long[] ids = idByOrdinal;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[ordinal] = id;
+            idByOrdinal = ids;
+            return ordinal;
+        }
+
+        void append(String term, int ordinal, int weight) {
+            postings.computeIfAbsent(term, t -> new Postings()).append(ordinal, weight);
+        }
+    }
+
+    // Immutable view handed to readers; appends beyond `size` are invisible to them
+    private static class Slice {
+        final int[] ordinals;
+        final byte[] weights;
+        final int size;
+
+        Slice(int[] ordinals, byte[] weights, int size) {
+            this.ordinals = ordinals;
+            this.weights = weights;
+            this.size = size;
+        }
+    }
+
+    private static class Postings {
+        volatile Slice slice = new Slice(new int[4], new byte[4], 0);
+        private int dead;
+
+        // Ordinals only grow, so appending keeps the array sorted
+        void append(int ordinal, int weight) {
+            Slice current = slice;
+            int[] ordinals = current.ordinals;
+            byte[] weights = current.weights;
+            if (current.size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, current.size * 2);
+                weights = Arrays.copyOf(weights, current.size * 2);
+            }
+            ordinals[current.size] = ordinal;
+            weights[current.size] = (byte) weight;
+            slice = new Slice(ordinals, weights, current.size + 1);
+        }
+
+        // Returns the number of live entries, compacting once half of them are dead
+        int markDead(long[] idByOrdinal) {
+            dead++;
+            Slice current = slice;
+            if (dead * 2 < current.size) {
+                return current.size - dead;
+            }
+            int[] ordinals = new int[Math.max(4, current.size - dead)];
+            byte[] weights = new byte[ordinals.length];
+            int live = 0;
+            for (int i = 0; i < current.size; i++) {
+                if (idByOrdinal[current.ordinals[i]] != DEAD) {
+                    ordinals[live] = current.ordinals[i];
+                    weights[live] = current.weights[i];
+                    live++;
+                }
+            }
+            slice = new Slice(ordinals, weights, live);
+            dead = 0;
+            return live;
+        }
+    }
+
+    // Read position in one term's postings during a merge
+    private static class Cursor {
+        final Slice slice;
+        final int factor;
+        int position;
+
+        Cursor(Slice slice, int factor) {
+            this.slice = slice;
+            this.factor = factor;
+        }
+
+        int ordinal() {
+            return slice.ordinals[position];
+        }
+    }
+
+    private static class Matches {
+        final int[] ordinals;
+        final int[] scores;
+        final int size;
+
+        Matches(int[] ordinals, int[] scores, int size) {
+            this.ordinals = ordinals;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        // First position at or after `from` whose ordinal is >= target (exponential then binary search)
+        int seek(int from, int target) {
+            int step = 1;
+            int high = from;
+            while (high < size && ordinals[high] < target) {
+                from = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(ordinals, from, Math.min(high, size - 1) + 1, target);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -1,21 +1,119 @@
 package com.certhub.service;
 
 import com.certhub.entity.Certificate;
+import com.certhub.entity.SnowflakeIdGenerator;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class CertificateService {
 
+    private static final Logger LOG = Logger.getLogger(CertificateService.class);
+
+    @ConfigProperty(name = "app.store.enabled", defaultValue = "false")
+    boolean storeEnabled;
+
+    @ConfigProperty(name = "app.store.directory", defaultValue = "data/metadata")
+    String storeDirectory;
+
+    // Keeps a metadata sidecar per certificate in the bucket so a node can rebuild from S3
+    @ConfigProperty(name = "app.store.s3-mirror", defaultValue = "false")
+    boolean s3Mirror;
+
+    @Inject
+    S3Service s3Service;
+
     private final Map<Long, Certificate> certificates = new ConcurrentHashMap<>();
     private final Map<String, Certificate> certificatesByShareableId = new ConcurrentHashMap<>();
+    // Newest first, so a listing page is a bounded walk from a cursor
+    private final ConcurrentSkipListMap<CertificateCursor, Certificate> certificatesByUploadedAt =
+            new ConcurrentSkipListMap<>();
+    private final CertificateSearchIndex searchIndex = new CertificateSearchIndex();
+
+    // Orders map updates with their log records so replay ends in the same state.
+    // A ReentrantLock rather than synchronized so virtual threads never pin their carrier.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private MetadataLog metadataLog;
+
+    @PostConstruct
+    void init() {
+        if (!storeEnabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            metadataLog = MetadataLog.open(Paths.get(storeDirectory), certificates);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open metadata store in " + storeDirectory, e);
+        }
+        certificates.values().forEach(this::index);
+        certificates.keySet().forEach(SnowflakeIdGenerator.shared()::advancePast);
+        LOG.infof("Loaded %d certificates from %s in %d ms", certificates.size(), storeDirectory,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (metadataLog == null) {
+            return;
+        }
+        snapshot();
+        try {
+            metadataLog.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close metadata store", e);
+        }
+    }
 
     public void saveCertificate(Certificate certificate) {
-        certificates.put(certificate.id, certificate);
-        certificatesByShareableId.put(certificate.shareableId, certificate);
+        putDurably(certificate);
+        mirror(certificate);
+    }
+
+    // One lock hold for the whole batch, so its log records land together and share a flush.
+    // If any of them fails to persist, the whole batch is taken back out of the maps.
+    public void saveCertificates(List<Certificate> batch) {
+        List<CompletableFuture<Void>> durable;
+        List<Certificate> previous = new ArrayList<>(batch.size());
+        writeLock.lock();
+        try {
+            durable = metadataLog == null ? List.of() : metadataLog.appendPuts(batch);
+            for (Certificate certificate : batch) {
+                previous.add(put(certificate));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            durable.forEach(this::awaitDurable);
+        } catch (UncheckedIOException e) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                rollback(batch.get(i), previous.get(i));
+            }
+            throw e;
+        }
+        batch.forEach(this::mirror);
     }
 
     public List<Certificate> findAllCertificates() {
@@ -23,6 +121,58 @@ public class CertificateService {
                 .collect(Collectors.toList());
     }
 
+    // Up to limit certificates after the cursor, newest first, optionally filtered by
+    // file type prefix (e.g. "image/" or "application/pdf") and an inclusive upload window
+    public List<Certificate> findPage(CertificateCursor after, String fileType,
+                                      LocalDateTime from, LocalDateTime to, int limit) {
+        // Resolve the tighter start bound up front and take a single view of the index
+        CertificateCursor start = after;
+        boolean startInclusive = false;
+        if (to != null && (start == null || CertificateCursor.newestAt(to).compareTo(start) > 0)) {
+            start = CertificateCursor.newestAt(to);
+            startInclusive = true;
+        }
+        CertificateCursor end = from == null ? null : CertificateCursor.oldestAt(from);
+        if (start != null && end != null && start.compareTo(end) > 0) {
+            return new ArrayList<>();
+        }
+
+        ConcurrentNavigableMap<CertificateCursor, Certificate> range;
+        if (start != null && end != null) {
+            range = certificatesByUploadedAt.subMap(start, startInclusive, end, true);
+        } else if (start != null) {
+            range = certificatesByUploadedAt.tailMap(start, startInclusive);
+        } else if (end != null) {
+            range = certificatesByUploadedAt.headMap(end, true);
+        } else {
+            range = certificatesByUploadedAt;
+        }
+
+        List<Certificate> page = new ArrayList<>(Math.min(limit, 256));
+        for (Certificate certificate : range.values()) {
+            if (fileType != null && (certificate.fileType == null || !certificate.fileType.startsWith(fileType))) {
+                continue;
+            }
+            page.add(certificate);
+            if (page.size() == limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    // Ranked matches for a free-text query over title, file name and credential host
+    public List<Certificate> search(String query, int limit) {
+        List<Certificate> results = new ArrayList<>();
+        for (Long id : searchIndex.search(query, limit)) {
+            Certificate certificate = certificates.get(id);
+            if (certificate != null) {
+                results.add(certificate);
+            }
+        }
+        return results;
+    }
+
     public Certificate findById(Long id) {
         return certificates.get(id);
     }
@@ -32,14 +182,188 @@ public class CertificateService {
     }
 
     public void deleteCertificate(Long id) {
-        Certificate certificate = certificates.remove(id);
-        if (certificate != null) {
-            certificatesByShareableId.remove(certificate.shareableId);
+        CompletableFuture<Void> durable;
+        Certificate certificate;
+        writeLock.lock();
+        try {
+            certificate = certificates.remove(id);
+            if (certificate == null) {
+                return;
+            }
+            unindex(certificate);
+            durable = metadataLog == null ? null : metadataLog.appendDelete(id);
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            awaitDurable(durable);
+        } catch (UncheckedIOException e) {
+            // Still in the log, so it comes back after a restart anyway
+            writeLock.lock();
+            try {
+                if (certificates.putIfAbsent(id, certificate) == null) {
+                    index(certificate);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+        if (s3Mirror) {
+            try {
+                s3Service.deleteCertificateMetadata(id);
+            } catch (RuntimeException e) {
+                LOG.warnf(e, "Failed to delete S3 metadata for certificate %d", id);
+            }
         }
     }
 
     public void updateCertificate(Certificate certificate) {
-        certificates.put(certificate.id, certificate);
+        putDurably(certificate);
+        mirror(certificate);
+    }
+
+    public boolean isEmpty() {
+        return certificates.isEmpty();
+    }
+
+    // Loads certificates recovered from S3; they already have sidecars, so nothing is mirrored back
+    public void restoreCertificates(Collection<Certificate> restored) {
+        List<CompletableFuture<Void>> durable = new ArrayList<>();
+        List<Certificate> added = new ArrayList<>();
+        writeLock.lock();
+        try {
+            for (Certificate certificate : restored) {
+                if (certificates.putIfAbsent(certificate.id, certificate) != null) {
+                    continue;
+                }
+                index(certificate);
+                added.add(certificate);
+                SnowflakeIdGenerator.shared().advancePast(certificate.id);
+                if (metadataLog != null) {
+                    durable.add(metadataLog.appendPut(certificate));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            durable.forEach(this::awaitDurable);
+        } catch (UncheckedIOException e) {
+            added.forEach(certificate -> rollback(certificate, null));
+            throw e;
+        }
+    }
+
+    // Compacts the log: everything before the rotation point is folded into a snapshot
+    @Scheduled(every = "${app.store.snapshot-interval:10m}", delayed = "${app.store.snapshot-interval:10m}")
+    void snapshot() {
+        if (metadataLog == null) {
+            return;
+        }
+        CompletableFuture<Long> rotation;
+        List<Certificate> state;
+        writeLock.lock();
+        try {
+            rotation = metadataLog.rotate();
+            state = new ArrayList<>(certificates.values());
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            long start = System.nanoTime();
+            metadataLog.writeSnapshot(rotation.join(), state);
+            LOG.debugf("Snapshot of %d certificates written in %d ms", state.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | CompletionException e) {
+            LOG.warn("Failed to write metadata snapshot", e);
+        }
+    }
+
+    // Readers see the write as soon as it is logged, before the flush; a write whose flush
+    // fails is rolled back so nothing is served that a restart would lose
+    private void putDurably(Certificate certificate) {
+        CompletableFuture<Void> durable;
+        Certificate previous;
+        writeLock.lock();
+        try {
+            // Encoded first: a record the log refuses must not be left behind in the maps
+            durable = metadataLog == null ? null : metadataLog.appendPut(certificate);
+            previous = put(certificate);
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            awaitDurable(durable);
+        } catch (UncheckedIOException e) {
+            rollback(certificate, previous);
+            throw e;
+        }
+    }
+
+    // Callers hold writeLock; returns the certificate it replaced, if any
+    private Certificate put(Certificate certificate) {
+        Certificate previous = certificates.put(certificate.id, certificate);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(certificate);
+        return previous;
+    }
+
+    // Undoes a put whose log record never became durable, unless a later write has replaced it
+    private void rollback(Certificate written, Certificate previous) {
+        writeLock.lock();
+        try {
+            if (certificates.get(written.id) != written) {
+                return;
+            }
+            unindex(written);
+            if (previous != null) {
+                certificates.put(previous.id, previous);
+                index(previous);
+            } else {
+                certificates.remove(written.id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void index(Certificate certificate) {
         certificatesByShareableId.put(certificate.shareableId, certificate);
+        certificatesByUploadedAt.put(CertificateCursor.of(certificate), certificate);
+        searchIndex.add(certificate);
+    }
+
+    private void unindex(Certificate certificate) {
+        certificatesByShareableId.remove(certificate.shareableId);
+        certificatesByUploadedAt.remove(CertificateCursor.of(certificate));
+        searchIndex.remove(certificate.id);
+    }
+
+    private void mirror(Certificate certificate) {
+        if (!s3Mirror) {
+            return;
+        }
+        // The local log is the primary copy; a missed sidecar only matters for a rebuild from S3
+        try {
+            s3Service.putCertificateMetadata(certificate);
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Failed to write S3 metadata for certificate %d", certificate.id);
+        }
+    }
+
+    // Waiting happens outside the lock so concurrent writers share one fsync
+    private void awaitDurable(CompletableFuture<Void> durable) {
+        if (durable == null) {
+            return;
+        }
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            throw new UncheckedIOException("Failed to persist certificate metadata",
+                    e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause()));
+        }
     }
-}
\ No newline at end of file
+}
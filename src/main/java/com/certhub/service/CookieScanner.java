@@ -0,0 +1,65 @@
+package com.certhub.service;
+
+// Finds one cookie in a Cookie request header without splitting it: a single pass over the
+// characters, no regex and no intermediate strings. locate() allocates nothing at all; value()
+// allocates only the returned value.
+public final class CookieScanner {
+
+    private CookieScanner() {
+    }
+
+    // The value of the named cookie, or null if the header does not carry it
+    public static String value(String header, String name) {
+        long range = locate(header, name);
+        if (range < 0) {
+            return null;
+        }
+        return header.substring((int) (range >>> 32), (int) range);
+    }
+
+    // Start (high 32 bits) and end (low 32 bits) of the value of the first cookie called name,
+    // or -1. Values may be wrapped in double quotes, which are not part of the range.
+    public static long locate(CharSequence header, String name) {
+        if (header == null) {
+            return -1;
+        }
+        int length = header.length();
+        int nameLength = name.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isWhitespace(header.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            while (end < length && header.charAt(end) != ';') {
+                end++;
+            }
+            if (end - i > nameLength && header.charAt(i + nameLength) == '=' && matches(header, i, name)) {
+                int start = i + nameLength + 1;
+                while (end > start && isWhitespace(header.charAt(end - 1))) {
+                    end--;
+                }
+                if (end - start >= 2 && header.charAt(start) == '"' && header.charAt(end - 1) == '"') {
+                    start++;
+                    end--;
+                }
+                return ((long) start << 32) | end;
+            }
+            i = end + 1;
+        }
+        return -1;
+    }
+
+    private static boolean matches(CharSequence header, int offset, String name) {
+        for (int j = 0; j < name.length(); j++) {
+            if (header.charAt(offset + j) != name.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
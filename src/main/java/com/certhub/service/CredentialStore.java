@@ -0,0 +1,192 @@
+package com.certhub.service;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.mindrot.jbcrypt.BCrypt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Admin credentials checked against a BCrypt hash. BCrypt is deliberately slow (~250 ms at cost
+// 12), so verifications run on a small dedicated pool with a bounded queue: a burst of login
+// attempts waits there or is turned away, instead of occupying the event loop or the workers
+// that serve everything else. When the configured cost changes, the next successful login
+// rehashes the password at the new cost.
+@ApplicationScoped
+public class CredentialStore {
+
+    private static final Logger LOG = Logger.getLogger(CredentialStore.class);
+
+    @ConfigProperty(name = "app.admin.username")
+    String adminUsername;
+
+    // Preferred: a BCrypt hash, e.g. from htpasswd -bnBC 12 "" password | tr -d ':\n'
+    @ConfigProperty(name = "app.admin.password-hash")
+    Optional<String> adminPasswordHash;
+
+    // Plain password, hashed at startup when no hash is configured
+    @ConfigProperty(name = "app.admin.password")
+    Optional<String> adminPassword;
+
+    @ConfigProperty(name = "app.auth.bcrypt-cost", defaultValue = "12")
+    int bcryptCost;
+
+    // Each thread hashes on one core; keep this below the core count
+    @ConfigProperty(name = "app.auth.hash-threads", defaultValue = "2")
+    int hashThreads;
+
+    @ConfigProperty(name = "app.auth.hash-queue", defaultValue = "64")
+    int hashQueue;
+
+    private final AtomicReference<String> adminHash = new AtomicReference<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private ThreadPoolExecutor pool;
+    // Compared against for unknown usernames, so they take as long as a wrong password
+    private String decoyHash;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(hashThreads, hashThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (adminPasswordHash.isPresent()) {
+            // $2y$ and $2b$ (htpasswd, PHP, OpenBSD) hash the same way as the $2a$ jBCrypt expects
+            adminHash.set(adminPasswordHash.get().replaceFirst("^\\$2[by]\\$", "\\$2a\\$"));
+        } else if (adminPassword.isPresent()) {
+            adminHash.set(BCrypt.hashpw(adminPassword.get(), BCrypt.gensalt(bcryptCost)));
+        } else {
+            throw new IllegalStateException("Set app.admin.password-hash (or app.admin.password)");
+        }
+        int cost = costOf(adminHash.get());
+        decoyHash = BCrypt.hashpw("decoy", BCrypt.gensalt(cost > 0 ? cost : bcryptCost));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Completes with the verdict, or exceptionally with CredentialsBusyException when the queue is full
+    public CompletionStage<Boolean> verify(String username, String password) {
+        boolean knownUser = username != null && MessageDigest.isEqual(
+                username.getBytes(StandardCharsets.UTF_8), adminUsername.getBytes(StandardCharsets.UTF_8));
+        String hash = knownUser ? adminHash.get() : decoyHash;
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    boolean valid = timed(() -> checkPassword(password, hash)) && knownUser;
+                    if (valid && costOf(hash) != bcryptCost) {
+                        rehash(password, hash);
+                    }
+                    result.complete(valid);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new CredentialsBusyException());
+        }
+        return result;
+    }
+
+    public int queueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public int activeHashes() {
+        return pool.getActiveCount();
+    }
+
+    public long completedHashes() {
+        return completed.sum();
+    }
+
+    public long rejectedHashes() {
+        return rejected.sum();
+    }
+
+    public double meanHashMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double maxHashMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    public int currentCost() {
+        return costOf(adminHash.get());
+    }
+
+    // Runs on the hashing pool after a successful check; a concurrent rehash of the same hash is dropped
+    private void rehash(String password, String oldHash) {
+        String newHash = timed(() -> BCrypt.hashpw(password, BCrypt.gensalt(bcryptCost)));
+        if (adminHash.compareAndSet(oldHash, newHash)) {
+            LOG.infof("Rehashed admin credentials from cost %d to %d; set app.admin.password-hash to keep it",
+                    costOf(oldHash), bcryptCost);
+        }
+    }
+
+    private <T> T timed(Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            completed.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private static boolean checkPassword(String password, String hash) {
+        if (password == null) {
+            return false;
+        }
+        try {
+            return BCrypt.checkpw(password, hash);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Configured admin password hash is not a valid BCrypt hash");
+            return false;
+        }
+    }
+
+    // "$2a$12$..." -> 12
+    static int costOf(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    public static class CredentialsBusyException extends RuntimeException {
+        public CredentialsBusyException() {
+            super("Too many concurrent login attempts", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.certhub.service;
+
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.quarkus.virtual.threads.VirtualThreads;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.GenericEntity;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+// The one place certificate bytes are streamed to clients. Sources become a Multi<Buffer>
+// that reads the next chunk only when the subscriber asks for it, so a slow client holds
+// one chunk (plus the socket's write queue) and no thread; each blocking read runs as its
+// own short task on the virtual-thread executor. Chunks come from a pool of direct buffers
+// that BufferStreamWriter hands back once Netty has written them.
+@ApplicationScoped
+public class DownloadStreamService {
+
+    private static final Logger LOG = Logger.getLogger(DownloadStreamService.class);
+
+    @ConfigProperty(name = "app.download.chunk-size", defaultValue = "32768")
+    int chunkSize;
+
+    // Upper bound on idle pooled chunks; busier moments allocate extra ones that the GC reclaims
+    @ConfigProperty(name = "app.download.pooled-chunks", defaultValue = "256")
+    int pooledChunks;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    private BlockingQueue<ByteBuffer> pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ArrayBlockingQueue<>(pooledChunks);
+    }
+
+    // A stream that is already open. It is only closed once the Multi terminates, and a
+    // response that is never written (HEAD) never subscribes, so anything holding a
+    // connection or S3 permit goes through the opener overload instead.
+    public Multi<Buffer> fromStream(InputStream input) {
+        return fromSource(() -> new StreamSource(input));
+    }
+
+    // Opened on subscription, e.g. one ranged GET per part of a multipart response
+    public Multi<Buffer> fromStream(Supplier<InputStream> opener) {
+        return fromSource(() -> new StreamSource(opener.get()));
+    }
+
+    public Multi<Buffer> fromFile(Path path, long start, long length) {
+        return fromSource(() -> new FileSource(path, start, length));
+    }
+
+    public Multi<Buffer> fromText(String text) {
+        return Multi.createFrom().item(() -> Buffer.buffer(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    public Multi<Buffer> concat(List<Multi<Buffer>> parts) {
+        return Multi.createBy().concatenating().streams(parts);
+    }
+
+    // A Response loses the entity's type arguments; this keeps them so BufferStreamWriter is picked
+    public static GenericEntity<Multi<Buffer>> entity(Multi<Buffer> body) {
+        return new GenericEntity<>(body) {
+        };
+    }
+
+    // Returns a chunk handed out by this service once its bytes have been written
+    public void recycle(Buffer chunk) {
+        ByteBuffer pooled = NettyBuffers.directChunk(chunk, chunkSize);
+        if (pooled != null) {
+            pool.offer(pooled);
+        }
+    }
+
+    private Multi<Buffer> fromSource(Supplier<ChunkSource> opener) {
+        return Multi.createFrom().deferred(() -> {
+            LazySource source = new LazySource(opener);
+            return Multi.createBy().repeating()
+                    .uni(() -> Uni.createFrom().item(source::next).runSubscriptionOn(virtualThreads))
+                    .until(chunk -> chunk.length() == 0)
+                    .onTermination().invoke((failure, cancelled) -> source.close(cancelled));
+        });
+    }
+
+    private ByteBuffer acquire() {
+        ByteBuffer chunk = pool.poll();
+        return chunk != null ? chunk : ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    // Vert.x 4 only reaches a Buffer's Netty ByteBuf through deprecated methods (the replacement,
+    // BufferInternal, arrives with Vert.x 5). They are the only way to hand a pooled direct chunk
+    // to Netty without copying it, so both calls are kept here.
+    @SuppressWarnings("deprecation")
+    private static final class NettyBuffers {
+
+        // The filled part of the chunk, shared rather than copied
+        static Buffer wrap(ByteBuffer chunk) {
+            int length = chunk.position();
+            return Buffer.buffer(Unpooled.wrappedBuffer(chunk.clear()).writerIndex(length));
+        }
+
+        // The whole pooled chunk behind a Buffer from wrap(), or null for any other Buffer
+        static ByteBuffer directChunk(Buffer buffer, int chunkSize) {
+            ByteBuf root = buffer.getByteBuf();
+            while (root.unwrap() != null) {
+                root = root.unwrap();
+            }
+            return root.isDirect() && root.capacity() == chunkSize ? root.nioBuffer(0, chunkSize) : null;
+        }
+    }
+
+    private interface ChunkSource {
+        // Fills the chunk as far as the source allows; nothing read means the end
+        void read(ByteBuffer chunk) throws IOException;
+
+        void close(boolean abort) throws IOException;
+    }
+
+    // Opens the real source on the first read, which runs on a reader thread rather than
+    // the event loop. Cancellation closes it (aborts, for S3) from whichever thread cancels;
+    // a read still in flight then fails and its chunk is dropped.
+    private class LazySource {
+        private final Supplier<ChunkSource> opener;
+        private ChunkSource source;
+        private boolean closed;
+
+        LazySource(Supplier<ChunkSource> opener) {
+            this.opener = opener;
+        }
+
+        Buffer next() {
+            ByteBuffer chunk = acquire();
+            try {
+                ChunkSource current = open();
+                if (current != null) {
+                    current.read(chunk);
+                }
+            } catch (IOException e) {
+                pool.offer(chunk.clear());
+                throw new UncheckedIOException(e);
+            }
+            if (chunk.position() == 0) {
+                pool.offer(chunk.clear());
+                return Buffer.buffer();
+            }
+            return NettyBuffers.wrap(chunk);
+        }
+
+        // The S3 request is made outside the lock so a concurrent close never waits on it
+        private ChunkSource open() throws IOException {
+            synchronized (this) {
+                if (closed || source != null) {
+                    return closed ? null : source;
+                }
+            }
+            ChunkSource opened = opener.get();
+            synchronized (this) {
+                if (!closed) {
+                    source = opened;
+                    return opened;
+                }
+            }
+            opened.close(true);
+            return null;
+        }
+
+        void close(boolean abort) {
+            ChunkSource current;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                current = source;
+            }
+            if (current == null) {
+                return;
+            }
+            try {
+                current.close(abort);
+            } catch (IOException e) {
+                LOG.debugf(e, "Failed to close download source");
+            }
+        }
+    }
+
+    private static class StreamSource implements ChunkSource {
+        private final InputStream input;
+        private final ReadableByteChannel channel;
+
+        StreamSource(InputStream input) {
+            this.input = input;
+            this.channel = Channels.newChannel(input);
+        }
+
+        @Override
+        public void read(ByteBuffer chunk) throws IOException {
+            // S3 hands out a few KB per read, so keep going until the chunk is full
+            int n = 0;
+            while (chunk.hasRemaining() && n != -1) {
+                n = channel.read(chunk);
+            }
+        }
+
+        // An abandoned S3 download is aborted rather than drained to the end
+        @Override
+        public void close(boolean abort) throws IOException {
+            if (abort && input instanceof S3ObjectInputStream) {
+                ((S3ObjectInputStream) input).abort();
+            } else {
+                input.close();
+            }
+        }
+    }
+
+    private static class FileSource implements ChunkSource {
+        private final FileChannel file;
+        private long position;
+        private final long end;
+
+        FileSource(Path path, long start, long length) {
+            try {
+                this.file = FileChannel.open(path, StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.position = start;
+            this.end = start + length;
+        }
+
+        @Override
+        public void read(ByteBuffer chunk) throws IOException {
+            if (end - position < chunk.remaining()) {
+                chunk.limit(chunk.position() + (int) (end - position));
+            }
+            while (chunk.hasRemaining()) {
+                int n = file.read(chunk, position);
+                if (n == -1) {
+                    return;
+                }
+                position += n;
+            }
+        }
+
+        @Override
+        public void close(boolean abort) throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.certhub.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.configuration.MemorySize;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.time.Duration;
+
+// Keeps a rolling Flight Recorder recording of the last app.jfr.max-age (bounded by max-size on
+// disk): the JDK's low-overhead "default" settings plus the RequestEvents over their thresholds.
+// A snapshot can be pulled at any time, so the evidence for a p99 spike is still there when
+// someone gets to look at it, without restarting with extra flags.
+@ApplicationScoped
+public class FlightRecorderService {
+
+    private static final Logger LOG = Logger.getLogger(FlightRecorderService.class);
+
+    @ConfigProperty(name = "app.jfr.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // JDK event settings: default (about 1% overhead) or profile
+    @ConfigProperty(name = "app.jfr.settings", defaultValue = "default")
+    String settings;
+
+    @ConfigProperty(name = "app.jfr.max-age", defaultValue = "30m")
+    Duration maxAge;
+
+    @ConfigProperty(name = "app.jfr.max-size", defaultValue = "100M")
+    MemorySize maxSize;
+
+    @ConfigProperty(name = "app.jfr.threshold.auth-check", defaultValue = "10ms")
+    Duration authCheckThreshold;
+
+    @ConfigProperty(name = "app.jfr.threshold.metadata-lookup", defaultValue = "20ms")
+    Duration metadataLookupThreshold;
+
+    @ConfigProperty(name = "app.jfr.threshold.s3-first-byte", defaultValue = "250ms")
+    Duration s3FirstByteThreshold;
+
+    @ConfigProperty(name = "app.jfr.threshold.stream", defaultValue = "2s")
+    Duration streamThreshold;
+
+    private volatile Recording recording;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || !FlightRecorder.isAvailable()) {
+            return;
+        }
+        try {
+            Recording rolling = new Recording(Configuration.getConfiguration(settings));
+            rolling.setName("certhub-rolling");
+            rolling.setToDisk(true);
+            rolling.setMaxAge(maxAge);
+            rolling.setMaxSize(maxSize.asLongValue());
+            rolling.enable(RequestEvents.AuthCheck.class).withThreshold(authCheckThreshold);
+            rolling.enable(RequestEvents.MetadataLookup.class).withThreshold(metadataLookupThreshold);
+            rolling.enable(RequestEvents.S3FirstByte.class).withThreshold(s3FirstByteThreshold);
+            rolling.enable(RequestEvents.Stream.class).withThreshold(streamThreshold);
+            rolling.start();
+            recording = rolling;
+        } catch (IOException | ParseException | RuntimeException e) {
+            LOG.warnf(e, "Flight recording not started");
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        Recording current = recording;
+        recording = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    // The recording so far as a .jfr stream, or null when not recording. The rolling recording
+    // keeps going; the snapshot's disk chunks are released when the stream is closed.
+    public InputStream snapshot() throws IOException {
+        Recording current = recording;
+        if (current == null) {
+            return null;
+        }
+        Recording copy = current.copy(true);
+        InputStream data = copy.getStream(null, null);
+        if (data == null) {
+            copy.close();
+            return null;
+        }
+        return new FilterInputStream(data) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    copy.close();
+                }
+            }
+        };
+    }
+}
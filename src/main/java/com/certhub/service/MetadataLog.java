@@ -0,0 +1,397 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Durable certificate metadata: an append-only mutation log split into numbered
+// segments, plus binary snapshots that make older segments redundant.
+//
+// Appends are group committed: a single writer thread drains every pending
+// record, writes them in one go and shares a single fsync between them.
+// A snapshot-N file holds the full state as of the start of segment N, so boot
+// loads the newest snapshot and replays segments N and later.
+public class MetadataLog implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(MetadataLog.class);
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int SNAPSHOT_MAGIC = 0x43485331; // "CHS1"
+    private static final int MAX_BATCH = 1024;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final Path directory;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean closed;
+
+    // Only touched by the committer thread once the log is open
+    private FileChannel segment;
+    private long segmentNumber;
+
+    private MetadataLog(Path directory, long segmentNumber) throws IOException {
+        this.directory = directory;
+        this.segmentNumber = segmentNumber;
+        this.segment = openSegment(segmentNumber);
+        this.committer = new Thread(this::commitLoop, "metadata-log-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    // Loads the newest snapshot and replays the segments after it into the map
+    public static MetadataLog open(Path directory, Map<Long, Certificate> into) throws IOException {
+        Files.createDirectories(directory);
+
+        long snapshotSegment = 0;
+        Path snapshot = newest(directory, SNAPSHOT_NAME);
+        if (snapshot != null) {
+            snapshotSegment = number(snapshot, SNAPSHOT_NAME);
+            readSnapshot(snapshot, into);
+        }
+
+        long lastSegment = snapshotSegment;
+        for (Path segmentFile : list(directory, SEGMENT_NAME)) {
+            long number = number(segmentFile, SEGMENT_NAME);
+            if (number < snapshotSegment) {
+                Files.deleteIfExists(segmentFile);
+                continue;
+            }
+            replaySegment(segmentFile, into);
+            lastSegment = Math.max(lastSegment, number);
+        }
+
+        // Never append behind a possibly torn tail; start a fresh segment instead
+        return new MetadataLog(directory, lastSegment + 1);
+    }
+
+    public CompletableFuture<Void> appendPut(Certificate certificate) {
+        return append(encode(OP_PUT, certificate, null));
+    }
+
+    // Every record is encoded before any is queued, so a batch with one unwritable
+    // certificate is rejected as a whole
+    public List<CompletableFuture<Void>> appendPuts(Collection<Certificate> certificates) {
+        List<byte[]> records = new ArrayList<>(certificates.size());
+        for (Certificate certificate : certificates) {
+            records.add(encode(OP_PUT, certificate, null));
+        }
+        List<CompletableFuture<Void>> durable = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            durable.add(append(record));
+        }
+        return durable;
+    }
+
+    public CompletableFuture<Void> appendDelete(Long id) {
+        return append(encode(OP_DELETE, null, id));
+    }
+
+    // Switches to a new segment; completes with the number of that segment once every
+    // record queued before the call is durable in the previous one
+    public CompletableFuture<Long> rotate() {
+        PendingWrite marker = new PendingWrite(null);
+        queue.add(marker);
+        return marker.done.thenApply(ignored -> marker.rotatedTo);
+    }
+
+    // Writes a snapshot covering all segments before firstSegment, then drops them
+    public void writeSnapshot(long firstSegment, Collection<Certificate> certificates) throws IOException {
+        Path target = directory.resolve("snapshot-" + firstSegment + ".bin");
+        Path temp = directory.resolve("snapshot-" + firstSegment + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 64 * 1024));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(certificates.size());
+            for (Certificate certificate : certificates) {
+                CertificateCodec.write(certificate, out);
+            }
+            out.flush();
+            // The trailing checksum marks the snapshot as complete
+            ByteBuffer trailer = ByteBuffer.allocate(8).putLong(crc.getValue());
+            trailer.flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+
+        for (Path old : list(directory, SNAPSHOT_NAME)) {
+            if (number(old, SNAPSHOT_NAME) < firstSegment) {
+                Files.deleteIfExists(old);
+            }
+        }
+        for (Path old : list(directory, SEGMENT_NAME)) {
+            if (number(old, SEGMENT_NAME) < firstSegment) {
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    private CompletableFuture<Void> append(byte[] record) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("Metadata log is closed"));
+        }
+        PendingWrite write = new PendingWrite(record);
+        queue.add(write);
+        return write.done;
+    }
+
+    private void commitLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<PendingWrite> written = new ArrayList<>();
+        try {
+            for (PendingWrite write : batch) {
+                if (write.record == null) {
+                    // Rotation marker: seal everything before it in the current segment
+                    flush(written);
+                    segment.close();
+                    segmentNumber++;
+                    segment = openSegment(segmentNumber);
+                    write.rotatedTo = segmentNumber;
+                    write.done.complete(null);
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(write.record);
+                while (buffer.hasRemaining()) {
+                    segment.write(buffer);
+                }
+                written.add(write);
+            }
+            flush(written);
+        } catch (IOException e) {
+            LOG.error("Failed to commit metadata log batch", e);
+            for (PendingWrite write : batch) {
+                write.done.completeExceptionally(e);
+            }
+            // The segment may now end in a partial record, so later appends go to a new one
+            try {
+                segment.close();
+                segmentNumber++;
+                segment = openSegment(segmentNumber);
+            } catch (IOException reopenFailure) {
+                LOG.error("Failed to open a new metadata log segment", reopenFailure);
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        // One fsync for the whole group
+        segment.force(false);
+        for (PendingWrite write : written) {
+            write.done.complete(null);
+        }
+        written.clear();
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve("wal-" + number + ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        syncDirectory();
+        return channel;
+    }
+
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not every platform allows opening a directory; the rename is still atomic
+        }
+    }
+
+    // Record layout: [int payload length][int crc32 of payload][payload]
+    private static byte[] encode(byte op, Certificate certificate, Long id) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeByte(op);
+            if (op == OP_PUT) {
+                CertificateCodec.write(certificate, out);
+            } else {
+                out.writeLong(id);
+            }
+            byte[] body = payload.toByteArray();
+            // Replay would take a longer record for a torn tail and drop everything after it
+            if (body.length > MAX_RECORD_BYTES) {
+                throw new IOException("Metadata record of " + body.length + " bytes exceeds " + MAX_RECORD_BYTES);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body);
+
+            ByteBuffer record = ByteBuffer.allocate(8 + body.length);
+            record.putInt(body.length);
+            record.putInt((int) crc.getValue());
+            record.put(body);
+            return record.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void replaySegment(Path segmentFile, Map<Long, Certificate> into) throws IOException {
+        int applied = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segmentFile), 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    throw new EOFException("implausible record length " + length);
+                }
+                int checksum = in.readInt();
+                byte[] body = new byte[length];
+                in.readFully(body);
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    throw new EOFException("checksum mismatch");
+                }
+                apply(body, into);
+                applied++;
+            }
+        } catch (EOFException e) {
+            // A crash mid-write leaves a torn record at the tail; everything before it is intact
+            LOG.warnf("Ignoring torn tail of %s after %d records", segmentFile.getFileName(), applied);
+        }
+    }
+
+    private static void apply(byte[] body, Map<Long, Certificate> into) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte op = in.readByte();
+        if (op == OP_PUT) {
+            Certificate certificate = CertificateCodec.read(in);
+            into.put(certificate.id, certificate);
+        } else if (op == OP_DELETE) {
+            into.remove(in.readLong());
+        } else {
+            throw new IOException("Unknown metadata log operation " + op);
+        }
+    }
+
+    private static void readSnapshot(Path snapshot, Map<Long, Certificate> into) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(snapshot), 64 * 1024)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a metadata snapshot: " + snapshot);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Certificate certificate = CertificateCodec.read(in);
+                into.put(certificate.id, certificate);
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(raw).readLong() != expected) {
+                throw new IOException("Corrupt metadata snapshot: " + snapshot);
+            }
+        }
+    }
+
+    private static Path newest(Path directory, Pattern pattern) throws IOException {
+        List<Path> files = list(directory, pattern);
+        return files.isEmpty() ? null : files.get(files.size() - 1);
+    }
+
+    private static List<Path> list(Path directory, Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> pattern.matcher(file.getFileName().toString()).matches())
+                    .sorted((a, b) -> Long.compare(number(a, pattern), number(b, pattern)))
+                    .toList();
+        }
+    }
+
+    private static long number(Path file, Pattern pattern) {
+        Matcher matcher = pattern.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(file.toString());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static class PendingWrite {
+        final byte[] record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        volatile long rotatedTo;
+
+        PendingWrite(byte[] record) {
+            this.record = record;
+        }
+    }
+}
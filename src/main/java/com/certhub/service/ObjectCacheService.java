@@ -0,0 +1,275 @@
+package com.certhub.service;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.quarkus.runtime.configuration.MemorySize;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Bounded on-disk copy of hot S3 objects. Caffeine's W-TinyLFU policy decides
+// what stays, weighted by file size, and evicted files are deleted from disk.
+@ApplicationScoped
+public class ObjectCacheService {
+
+    private static final Logger LOG = Logger.getLogger(ObjectCacheService.class);
+    private static final String FILE_PREFIX = "object-";
+    private static final Executor DELAYED_DELETE = CompletableFuture.delayedExecutor(30, TimeUnit.SECONDS);
+
+    @ConfigProperty(name = "app.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.cache.directory")
+    Optional<String> directory;
+
+    @ConfigProperty(name = "app.cache.max-size", defaultValue = "512M")
+    MemorySize maxSize;
+
+    @ConfigProperty(name = "app.cache.fill-threads", defaultValue = "4")
+    int fillThreads;
+
+    @Inject
+    S3Service s3Service;
+
+    private Path cacheDir;
+    // Async so a miss only parks the callers of that key instead of holding a map lock
+    // for the whole S3 download, which would also pin a virtual thread's carrier
+    private AsyncCache<String, CachedObject> asyncCache;
+    private Cache<String, CachedObject> cache;
+    // Background fills for requests that stream from S3 rather than wait for the download
+    private ExecutorService fillPool;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        cacheDir = Paths.get(directory.orElse(System.getProperty("java.io.tmpdir") + "/certhub-cache"));
+        try {
+            Files.createDirectories(cacheDir);
+            // The index lives in memory, so files from a previous run are unreachable
+            try (Stream<Path> leftovers = Files.list(cacheDir)) {
+                leftovers.filter(path -> path.getFileName().toString().startsWith(FILE_PREFIX))
+                        .forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            LOG.warnf(e, "Object cache disabled, cannot use %s", cacheDir);
+            enabled = false;
+            return;
+        }
+
+        asyncCache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.asLongValue())
+                .weigher((String key, CachedObject cached) -> (int) Math.min(Integer.MAX_VALUE, cached.size))
+                .removalListener((String key, CachedObject cached, RemovalCause cause) -> {
+                    if (cached != null) {
+                        // Give responses that already picked this file time to open it
+                        DELAYED_DELETE.execute(() -> deleteQuietly(cached.path));
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        cache = asyncCache.synchronous();
+        fillPool = Executors.newFixedThreadPool(fillThreads, runnable -> {
+            Thread thread = new Thread(runnable, "object-cache-fill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (fillPool != null) {
+            fillPool.shutdownNow();
+        }
+    }
+
+    // Local copy of the object, fetched from S3 on a miss; null means serve from S3 directly
+    public Path getFile(String key) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            CachedObject cached = fetch(key);
+            if (isIntact(cached)) {
+                return cached.path;
+            }
+            // Somebody truncated or removed the file behind our back
+            cache.asMap().remove(key, cached);
+            cached = fetch(key);
+            return isIntact(cached) ? cached.path : null;
+        } catch (UncheckedIOException | SdkClientException e) {
+            LOG.warnf(e, "Object cache fill failed for %s", key);
+            return null;
+        }
+    }
+
+    // The caller that inserts the pending entry downloads the object; concurrent callers wait on it
+    private CachedObject fetch(String key) {
+        CompletableFuture<CachedObject> pending = new CompletableFuture<>();
+        CompletableFuture<CachedObject> future = asyncCache.get(key, (k, executor) -> pending);
+        if (future == pending) {
+            try {
+                pending.complete(load(key));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    // Starts downloading the object in the background unless it is cached or already on its way,
+    // so the caller can stream this request from S3 and the next one is served locally
+    public void fillAsync(String key) {
+        if (!enabled) {
+            return;
+        }
+        CachedObject cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (isIntact(cached)) {
+                return;
+            }
+            cache.asMap().remove(key, cached);
+        }
+        // A failed fill is dropped from the cache by Caffeine, so the next miss tries again
+        asyncCache.get(key, (k, executor) -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(k);
+            } catch (UncheckedIOException | SdkClientException e) {
+                LOG.warnf(e, "Object cache fill failed for %s", k);
+                throw e;
+            }
+        }, fillPool));
+    }
+
+    // Local copy only if already cached; used for range requests, which should not pull whole objects
+    public Path getCachedFile(String key) {
+        if (!enabled) {
+            return null;
+        }
+        CachedObject cached = cache.getIfPresent(key);
+        return cached != null && isIntact(cached) ? cached.path : null;
+    }
+
+    public void invalidate(String key) {
+        if (enabled) {
+            cache.invalidate(key);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CacheStats stats() {
+        return enabled ? cache.stats() : CacheStats.empty();
+    }
+
+    public long entryCount() {
+        return enabled ? cache.estimatedSize() : 0;
+    }
+
+    public long weightedSize() {
+        return enabled ? cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L) : 0;
+    }
+
+    public long capacity() {
+        return maxSize.asLongValue();
+    }
+
+    private CachedObject load(String key) {
+        Path file = null;
+        try {
+            file = Files.createTempFile(cacheDir, FILE_PREFIX, ".bin");
+            S3Object s3Object = s3Service.getFile(key);
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            long size;
+            try (InputStream input = new DigestInputStream(s3Object.getObjectContent(), md5)) {
+                size = Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            ObjectMetadata metadata = s3Object.getObjectMetadata();
+            if (size != metadata.getContentLength()) {
+                throw new IOException("Expected " + metadata.getContentLength() + " bytes but got " + size);
+            }
+            // Single-part uploads carry the MD5 as ETag; multipart ETags end in "-<parts>"
+            String eTag = metadata.getETag();
+            if (eTag != null && !eTag.contains("-")
+                    && !eTag.equalsIgnoreCase(HexFormat.of().formatHex(md5.digest()))) {
+                throw new IOException("Checksum mismatch for " + key);
+            }
+            return new CachedObject(file, size);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            deleteQuietly(file);
+            throw new IllegalStateException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private boolean isIntact(CachedObject cached) {
+        try {
+            return Files.size(cached.path) == cached.size;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.debugf(e, "Could not delete cached file %s", path);
+        }
+    }
+
+    private static class CachedObject {
+        final Path path;
+        final long size;
+
+        CachedObject(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
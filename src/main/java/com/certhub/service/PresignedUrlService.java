@@ -0,0 +1,74 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Date;
+
+// Hands out short-lived S3 GET links so public file bytes bypass the JVM.
+// Signed links are reused until shortly before they expire.
+@ApplicationScoped
+public class PresignedUrlService {
+
+    @ConfigProperty(name = "app.presigned-url.ttl", defaultValue = "15m")
+    Duration ttl;
+
+    @ConfigProperty(name = "app.presigned-url.refresh-margin", defaultValue = "2m")
+    Duration refreshMargin;
+
+    @Inject
+    S3Service s3Service;
+
+    private Cache<String, PresignedUrl> urls;
+
+    @PostConstruct
+    void init() {
+        urls = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.minus(refreshMargin))
+                .maximumSize(10_000)
+                .build();
+    }
+
+    public PresignedUrl getUrl(Certificate certificate, String disposition) {
+        // The overrides are part of the signature, so inline and attachment links differ
+        return urls.get(certificate.s3Key + "|" + disposition, cacheKey -> {
+            Date expiresAt = new Date(System.currentTimeMillis() + ttl.toMillis());
+            String contentDisposition = disposition + "; filename=\"" + certificate.fileName + "\"";
+            try {
+                URI uri = s3Service.generatePresignedUrl(certificate.s3Key, expiresAt,
+                        certificate.fileType, contentDisposition).toURI();
+                return new PresignedUrl(uri, expiresAt.getTime());
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException("S3 returned an invalid presigned URL", e);
+            }
+        });
+    }
+
+    public void invalidate(String s3Key) {
+        urls.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(s3Key + "|"));
+    }
+
+    // How long a client may reuse the redirect before the link itself goes stale
+    public long cacheableSeconds(PresignedUrl url) {
+        long remaining = url.expiresAtMillis - System.currentTimeMillis() - refreshMargin.toMillis();
+        return Math.max(0, remaining / 1000);
+    }
+
+    public static class PresignedUrl {
+        public final URI uri;
+        public final long expiresAtMillis;
+
+        public PresignedUrl(URI uri, long expiresAtMillis) {
+            this.uri = uri;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.certhub.service;
+
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Applies @RateLimited before authentication and before any body is read, keyed by the client
+// address. Behind a load balancer set quarkus.http.proxy.proxy-address-forwarding=true so the
+// address comes from X-Forwarded-For rather than being the balancer's.
+@Provider
+@RateLimited("")
+@Priority(Priorities.AUTHENTICATION - 100)
+public class RateLimitFilter implements ContainerRequestFilter {
+
+    @Inject
+    RateLimitService rateLimitService;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Context
+    HttpServerRequest request;
+
+    // Resolved once per resource method instead of reading annotations on every request
+    private final Map<Method, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!rateLimitService.isEnabled()) {
+            return;
+        }
+        Method method = resourceInfo.getResourceMethod();
+        RateLimiter limiter = limiters.get(method);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(method, this::limiterFor);
+        }
+        SocketAddress client = request.remoteAddress();
+        long waitNanos = limiter.tryAcquire(client == null ? "unknown" : client.host());
+        if (waitNanos > 0) {
+            requestContext.abortWith(Response.status(429)
+                    .header("Retry-After", Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)))
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ErrorResponse("Too many requests, please retry later"))
+                    .build());
+        }
+    }
+
+    private RateLimiter limiterFor(Method method) {
+        RateLimited rule = method.getAnnotation(RateLimited.class);
+        if (rule == null) {
+            rule = resourceInfo.getResourceClass().getAnnotation(RateLimited.class);
+        }
+        return rateLimitService.limiter(rule.value());
+    }
+
+    public static class ErrorResponse {
+        public String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+    }
+}
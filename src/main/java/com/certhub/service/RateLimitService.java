@@ -0,0 +1,49 @@
+package com.certhub.service;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One RateLimiter per rule named in @RateLimited, created on first use from its config
+@ApplicationScoped
+public class RateLimitService {
+
+    @ConfigProperty(name = "app.rate-limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // Per rule; beyond this, each new client evicts an idle or least-throttled one
+    @ConfigProperty(name = "app.rate-limit.max-keys", defaultValue = "100000")
+    int maxKeys;
+
+    @Inject
+    Config config;
+
+    private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RateLimiter limiter(String rule) {
+        RateLimiter limiter = limiters.get(rule);
+        if (limiter != null) {
+            return limiter;
+        }
+        return limiters.computeIfAbsent(rule, name -> new RateLimiter(
+                config.getValue("app.rate-limit." + name + ".burst", Integer.class),
+                config.getValue("app.rate-limit." + name + ".per-minute", Integer.class),
+                maxKeys));
+    }
+
+    @Scheduled(every = "${app.rate-limit.sweep-interval:1m}")
+    void sweep() {
+        for (RateLimiter limiter : limiters.values()) {
+            limiter.sweep();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.certhub.service;
+
+import jakarta.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Limits requests per client IP under the named rule, configured as
+// app.rate-limit.<rule>.burst and app.rate-limit.<rule>.per-minute; see RateLimitFilter
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimited {
+    String value();
+}
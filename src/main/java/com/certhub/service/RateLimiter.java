@@ -0,0 +1,127 @@
+package com.certhub.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Token buckets per client key, kept as a single "theoretical arrival time" each (GCRA): a
+// request is allowed if pushing that time out by one emission interval keeps it within the
+// burst window of now. One CAS per request, no locks and no allocation once a key is known.
+// Keys are spread over stripes with a fixed capacity each; a bucket whose time has passed is
+// full again and indistinguishable from a missing one, so sweep() drops it. A key that arrives
+// while its stripe is full evicts the bucket with the most credit left out of the next few, so
+// a flood of new keys can neither grow the table nor throttle anyone else, and throttled keys
+// are evicted last.
+public class RateLimiter {
+
+    private static final int STRIPES = 16;
+    private static final int STRIPE_SHIFT = Integer.numberOfLeadingZeros(STRIPES - 1);
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeysPerStripe;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public RateLimiter(int burst, int perMinute, int maxKeys) {
+        this(burst, perMinute, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int burst, int perMinute, int maxKeys, LongSupplier clock) {
+        if (burst < 1 || perMinute < 1 || maxKeys < STRIPES) {
+            throw new IllegalArgumentException("Rate limit burst and rate must be positive and max keys at least " + STRIPES);
+        }
+        this.intervalNanos = 60_000_000_000L / perMinute;
+        this.burstNanos = intervalNanos * burst;
+        this.maxKeysPerStripe = maxKeys / STRIPES;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // 0 if the request may proceed, otherwise the nanos until it would be allowed
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Drops full (idle) buckets; returns how many keys remain
+    public int sweep() {
+        long now = clock.getAsLong();
+        int remaining = 0;
+        for (Stripe stripe : stripes) {
+            stripe.buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            remaining += stripe.buckets.size();
+        }
+        return remaining;
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        // High bits of a mixed hash, since the map inside the stripe picks its bins by the low ones
+        Stripe stripe = stripes[(key.hashCode() * 0x9E3779B9) >>> STRIPE_SHIFT];
+        AtomicLong bucket = stripe.buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.buckets.size() >= maxKeysPerStripe) {
+            makeRoom(stripe, now);
+        }
+        return stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    // Looks at the next few buckets under the stripe's clock hand instead of all of them: idle
+    // ones among them go, and if none was idle the earliest one does
+    private static void makeRoom(Stripe stripe, long now) {
+        stripe.evictionLock.lock();
+        try {
+            boolean removed = false;
+            Map.Entry<String, AtomicLong> earliest = null;
+            long earliestArrival = Long.MAX_VALUE;
+            for (int sampled = 0; sampled < EVICTION_SAMPLE; sampled++) {
+                if (stripe.hand == null || !stripe.hand.hasNext()) {
+                    stripe.hand = stripe.buckets.entrySet().iterator();
+                    if (!stripe.hand.hasNext()) {
+                        break;
+                    }
+                }
+                Map.Entry<String, AtomicLong> entry = stripe.hand.next();
+                long arrival = entry.getValue().get();
+                if (arrival - now <= 0) {
+                    stripe.hand.remove();
+                    removed = true;
+                } else if (earliest == null || arrival - earliestArrival < 0) {
+                    earliest = entry;
+                    earliestArrival = arrival;
+                }
+            }
+            if (!removed && earliest != null) {
+                stripe.buckets.remove(earliest.getKey(), earliest.getValue());
+            }
+        } finally {
+            stripe.evictionLock.unlock();
+        }
+    }
+
+    private static class Stripe {
+        final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        // The hand carries on where the last eviction stopped, so every bucket comes up in turn
+        final ReentrantLock evictionLock = new ReentrantLock();
+        Iterator<Map.Entry<String, AtomicLong>> hand;
+    }
+}
@@ -2,58 +2,203 @@ package com.certhub.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+// Verifies reCAPTCHA tokens without tying up a thread: the siteverify call is asynchronous and
+// bounded by connect/request timeouts and a cap on calls in flight. Tokens that verified are
+// remembered briefly, so a page that needs the same token twice (details, then download) costs
+// one round trip. When Google is slow or unreachable a circuit breaker stops calling it for a
+// while, and the fail-open setting decides whether visitors get through in the meantime.
 @ApplicationScoped
 public class RecaptchaService {
 
+    private static final Logger LOG = Logger.getLogger(RecaptchaService.class);
+
     @ConfigProperty(name = "recaptcha.secret-key")
     String secretKey;
 
+    @ConfigProperty(name = "recaptcha.verify-url", defaultValue = "https://www.google.com/recaptcha/api/siteverify")
+    String verifyUrl;
+
+    @ConfigProperty(name = "recaptcha.connect-timeout", defaultValue = "2s")
+    Duration connectTimeout;
+
+    @ConfigProperty(name = "recaptcha.request-timeout", defaultValue = "3s")
+    Duration requestTimeout;
+
+    @ConfigProperty(name = "recaptcha.max-in-flight", defaultValue = "64")
+    int maxInFlight;
+
+    @ConfigProperty(name = "recaptcha.cache-ttl", defaultValue = "2m")
+    Duration cacheTtl;
+
+    // Consecutive failed calls that open the breaker, and how long it stays open
+    @ConfigProperty(name = "recaptcha.breaker.failure-threshold", defaultValue = "5")
+    int failureThreshold;
+
+    @ConfigProperty(name = "recaptcha.breaker.open-duration", defaultValue = "30s")
+    Duration openDuration;
+
+    // Verdict while verification is unavailable: true lets visitors in, false turns them away
+    @ConfigProperty(name = "recaptcha.fail-open", defaultValue = "false")
+    boolean failOpen;
+
     @Inject
     ObjectMapper objectMapper;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private HttpClient httpClient;
+    private Semaphore inFlight;
+    private Cache<String, Boolean> verified;
+    private CircuitBreaker breaker;
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        inFlight = new Semaphore(maxInFlight);
+        verified = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(10_000)
+                .build();
+        breaker = new CircuitBreaker(failureThreshold, openDuration.toNanos(), System::nanoTime);
+    }
 
     public boolean verifyRecaptcha(String recaptchaResponse) {
+        return verifyAsync(recaptchaResponse).toCompletableFuture().join();
+    }
+
+    public CompletionStage<Boolean> verifyAsync(String recaptchaResponse) {
+        if (recaptchaResponse == null || recaptchaResponse.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
         // For testing/development with test keys, always return true
         if ("6LeIxAcTAAAAAGG-vFI1TnRWxMZNFuojJ4WifJWe".equals(secretKey)) {
-            return recaptchaResponse != null && !recaptchaResponse.isEmpty();
+            return CompletableFuture.completedFuture(true);
+        }
+        if (verified.getIfPresent(recaptchaResponse) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (!breaker.allowRequest()) {
+            return CompletableFuture.completedFuture(failOpen);
+        }
+        if (!inFlight.tryAcquire()) {
+            // Overloaded rather than broken, so the breaker is left alone
+            breaker.release();
+            return CompletableFuture.completedFuture(failOpen);
+        }
+
+        String postData = "secret=" + URLEncoder.encode(secretKey, StandardCharsets.UTF_8)
+                + "&response=" + URLEncoder.encode(recaptchaResponse, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(verifyUrl))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(postData))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    inFlight.release();
+                    Boolean success = failure == null ? parse(response) : null;
+                    if (success == null) {
+                        breaker.recordFailure();
+                        LOG.debugf(failure, "reCAPTCHA verification unavailable");
+                        return failOpen;
+                    }
+                    breaker.recordSuccess();
+                    if (success) {
+                        verified.put(recaptchaResponse, Boolean.TRUE);
+                    }
+                    return success;
+                });
+    }
+
+    public String breakerState() {
+        return breaker.state();
+    }
+
+    // The verdict, or null if the reply is not a usable siteverify answer
+    private Boolean parse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return null;
         }
-        
         try {
-            Map<String, String> params = new HashMap<>();
-            params.put("secret", secretKey);
-            params.put("response", recaptchaResponse);
+            JsonNode success = objectMapper.readTree(response.body()).get("success");
+            return success == null ? null : success.asBoolean();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Closed: calls go through. Open: no calls until the open duration has passed. Then exactly
+    // one trial call is let through (half-open), whose outcome closes or re-opens the breaker.
+    static class CircuitBreaker {
+        private final int threshold;
+        private final long openNanos;
+        private final LongSupplier clock;
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong openUntil = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicInteger trials = new AtomicInteger();
+
+        CircuitBreaker(int threshold, long openNanos, LongSupplier clock) {
+            this.threshold = threshold;
+            this.openNanos = openNanos;
+            this.clock = clock;
+        }
 
-            String postData = params.entrySet().stream()
-                    .map(entry -> entry.getKey() + "=" + entry.getValue())
-                    .reduce((a, b) -> a + "&" + b)
-                    .orElse("");
+        boolean allowRequest() {
+            long until = openUntil.get();
+            if (until == Long.MIN_VALUE) {
+                return true;
+            }
+            return clock.getAsLong() - until >= 0 && trials.compareAndSet(0, 1);
+        }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create("https://www.google.com/recaptcha/api/siteverify"))
-                    .header("Content-Type", "application/x-www-form-urlencoded")
-                    .POST(HttpRequest.BodyPublishers.ofString(postData))
-                    .build();
+        // Hands back a trial that never made a call
+        void release() {
+            trials.set(0);
+        }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        void recordSuccess() {
+            failures.set(0);
+            openUntil.set(Long.MIN_VALUE);
+            trials.set(0);
+        }
 
-            JsonNode jsonResponse = objectMapper.readTree(response.body());
-            return jsonResponse.get("success").asBoolean();
+        void recordFailure() {
+            if (openUntil.get() != Long.MIN_VALUE || failures.incrementAndGet() >= threshold) {
+                openUntil.set(clock.getAsLong() + openNanos);
+                trials.set(0);
+            }
+        }
 
-        } catch (IOException | InterruptedException e) {
-            return false;
+        String state() {
+            long until = openUntil.get();
+            if (until == Long.MIN_VALUE) {
+                return "closed";
+            }
+            return clock.getAsLong() - until >= 0 ? "half-open" : "open";
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.certhub.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.function.Supplier;
+
+// Flight Recorder events for the steps of a certificate request. Each carries a duration
+// threshold (overridable through app.jfr.threshold.*), so a recording only holds the slow
+// ones; below it an event costs a clock read, and nothing at all while JFR is off.
+public final class RequestEvents {
+
+    private RequestEvents() {
+    }
+
+    @Name("certhub.AuthCheck")
+    @Label("Auth Check")
+    @Description("Session cookie resolved by the auth filter")
+    @Category({"CertHub", "Requests"})
+    @Threshold("10 ms")
+    @StackTrace(false)
+    public static class AuthCheck extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Authenticated")
+        public boolean authenticated;
+    }
+
+    @Name("certhub.MetadataLookup")
+    @Label("Metadata Lookup")
+    @Description("Certificate looked up by id or shareable id")
+    @Category({"CertHub", "Requests"})
+    @Threshold("20 ms")
+    @StackTrace(false)
+    public static class MetadataLookup extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+
+        @Label("Key")
+        public String key;
+
+        @Label("Found")
+        public boolean found;
+    }
+
+    @Name("certhub.S3FirstByte")
+    @Label("S3 First Byte")
+    @Description("From sending an S3 GET until its response headers arrived")
+    @Category({"CertHub", "Storage"})
+    @Threshold("250 ms")
+    @StackTrace(false)
+    public static class S3FirstByte extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Object Key")
+        public String key;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("certhub.Stream")
+    @Label("Response Stream")
+    @Description("A certificate file written to a client, from the first chunk requested to the last written")
+    @Category({"CertHub", "Requests"})
+    @Threshold("2 s")
+    @StackTrace(false)
+    public static class Stream extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        // completed, failed or client-closed
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    // Runs a certificate lookup inside a MetadataLookup event
+    public static <T> T lookup(String endpoint, Object key, Supplier<T> lookup) {
+        MetadataLookup event = new MetadataLookup();
+        event.begin();
+        T result = lookup.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.key = String.valueOf(key);
+            event.found = result != null;
+            event.commit();
+        }
+        return result;
+    }
+}
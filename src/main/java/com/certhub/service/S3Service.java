@@ -1,24 +1,67 @@
 package com.certhub.service;
 
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.HttpMethod;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.certhub.entity.Certificate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @ApplicationScoped
 public class S3Service {
 
+    // Sidecar objects holding one certificate each in CertificateCodec's binary form
+    private static final String METADATA_PREFIX = "metadata/";
+    private static final String REVOCATIONS_PREFIX = "revocations/";
+
     @ConfigProperty(name = "aws.s3.bucket-name", defaultValue = "certhub-certificates")
     String bucketName;
 
@@ -34,11 +77,32 @@ public class S3Service {
     @ConfigProperty(name = "aws.secret-key")
     Optional<String> secretKey;
 
-    private AmazonS3 s3Client;
+    // Must cover the rehydration pool, or parallel HEAD requests queue on the connection pool
+    @ConfigProperty(name = "aws.s3.max-connections", defaultValue = "64")
+    int maxConnections;
+
+    // Virtual threads make request concurrency effectively unbounded, so S3 calls (and open
+    // download streams, which hold a pooled connection) are capped below the pool size
+    @ConfigProperty(name = "aws.s3.max-concurrent-requests", defaultValue = "48")
+    int maxConcurrentRequests;
+
+    @ConfigProperty(name = "aws.s3.acquire-timeout", defaultValue = "10s")
+    Duration acquireTimeout;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Semaphore permits;
+    // Built once per tag combination; registering on every call costs a registry lookup each time
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> permitWaitTimers = new ConcurrentHashMap<>();
+
+    AmazonS3 s3Client;
 
     @PostConstruct
     public void init() {
-        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard();
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withClientConfiguration(new ClientConfiguration().withMaxConnections(maxConnections));
 
         if (endpoint.isPresent()) {
             // MinIO configuration
@@ -57,6 +121,7 @@ public class S3Service {
         }
 
         this.s3Client = builder.build();
+        this.permits = new Semaphore(maxConcurrentRequests, true);
 
         // Create bucket if it doesn't exist (for MinIO)
         if (endpoint.isPresent()) {
@@ -71,28 +136,294 @@ public class S3Service {
     }
 
     public String uploadFile(InputStream fileStream, String fileName, String contentType, long contentLength) {
-        String key = UUID.randomUUID().toString() + "-" + fileName;
+        String key = newObjectKey(fileName);
         
         ObjectMetadata metadata = new ObjectMetadata();
         metadata.setContentType(contentType);
         metadata.setContentLength(contentLength);
         
         PutObjectRequest putRequest = new PutObjectRequest(bucketName, key, fileStream, metadata);
-        s3Client.putObject(putRequest);
+        limited("uploadFile", () -> s3Client.putObject(putRequest));
         
         return key;
     }
 
     public S3Object getFile(String key) {
-        return s3Client.getObject(bucketName, key);
+        return limitedStream("getFile", key, () -> s3Client.getObject(bucketName, key));
+    }
+
+    // Inclusive byte range, so a page jump in a large PDF only pulls the bytes it needs
+    public S3Object getFileRange(String key, long start, long end) {
+        return limitedStream("getFileRange", key, () -> s3Client.getObject(new GetObjectRequest(bucketName, key).withRange(start, end)));
     }
 
     public void deleteFile(String key) {
-        s3Client.deleteObject(bucketName, key);
+        limited("deleteFile", () -> s3Client.deleteObject(bucketName, key));
     }
 
     public String generatePresignedUrl(String key, int expirationMinutes) {
         return s3Client.generatePresignedUrl(bucketName, key, 
                 new java.util.Date(System.currentTimeMillis() + expirationMinutes * 60 * 1000)).toString();
     }
+
+    // Signed GET that makes S3 answer with our Content-Type and Content-Disposition
+    public URL generatePresignedUrl(String key, Date expiration, String contentType, String contentDisposition) {
+        GeneratePresignedUrlRequest presignRequest = new GeneratePresignedUrlRequest(bucketName, key)
+                .withMethod(HttpMethod.GET)
+                .withExpiration(expiration)
+                .withResponseHeaders(new ResponseHeaderOverrides()
+                        .withContentType(contentType)
+                        .withContentDisposition(contentDisposition));
+        return s3Client.generatePresignedUrl(presignRequest);
+    }
+
+    public InitiateMultipartUploadResult initiateMultipartUpload(String fileName, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+
+        InitiateMultipartUploadRequest initRequest =
+                new InitiateMultipartUploadRequest(bucketName, newObjectKey(fileName), metadata);
+        return limited("initiateMultipartUpload", () -> s3Client.initiateMultipartUpload(initRequest));
+    }
+
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream partStream, long partSize) {
+        UploadPartRequest partRequest = new UploadPartRequest()
+                .withBucketName(bucketName)
+                .withKey(key)
+                .withUploadId(uploadId)
+                .withPartNumber(partNumber)
+                .withInputStream(partStream)
+                .withPartSize(partSize);
+        return limited("uploadPart", () -> s3Client.uploadPart(partRequest)).getPartETag().getETag();
+    }
+
+    public void completeMultipartUpload(String key, String uploadId, Map<Integer, String> partETags) {
+        List<PartETag> parts = new ArrayList<>();
+        partETags.forEach((partNumber, eTag) -> parts.add(new PartETag(partNumber, eTag)));
+        parts.sort((a, b) -> Integer.compare(a.getPartNumber(), b.getPartNumber()));
+
+        limited("completeMultipartUpload", () -> s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, parts)));
+    }
+
+    public void abortMultipartUpload(String key, String uploadId) {
+        limited("abortMultipartUpload", () -> s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId)));
+    }
+
+    public int abortMultipartUploadsInitiatedBefore(Date cutoff, Set<String> keepUploadIds) {
+        int aborted = 0;
+        ListMultipartUploadsRequest listRequest = new ListMultipartUploadsRequest(bucketName);
+        MultipartUploadListing listing;
+        do {
+            listing = limited("abortMultipartUploadsInitiatedBefore", () -> s3Client.listMultipartUploads(listRequest));
+            for (MultipartUpload upload : listing.getMultipartUploads()) {
+                if (upload.getInitiated().before(cutoff) && !keepUploadIds.contains(upload.getUploadId())) {
+                    abortMultipartUpload(upload.getKey(), upload.getUploadId());
+                    aborted++;
+                }
+            }
+            listRequest.setKeyMarker(listing.getNextKeyMarker());
+            listRequest.setUploadIdMarker(listing.getNextUploadIdMarker());
+        } while (listing.isTruncated());
+        return aborted;
+    }
+
+    // Files generated from a stored certificate (thumbnails), under a key the caller derives
+    public void putDerivedFile(String key, byte[] data, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(data.length);
+        metadata.setContentType(contentType);
+        limited("putDerivedFile", () -> s3Client.putObject(new PutObjectRequest(bucketName, key,
+                new ByteArrayInputStream(data), metadata)));
+    }
+
+    public boolean fileExists(String key) {
+        return limited("fileExists", () -> s3Client.doesObjectExist(bucketName, key));
+    }
+
+    public void putCertificateMetadata(Certificate certificate) {
+        byte[] body = CertificateCodec.toBytes(certificate);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(body.length);
+        metadata.setContentType("application/octet-stream");
+        limited("putCertificateMetadata", () -> s3Client.putObject(new PutObjectRequest(bucketName, METADATA_PREFIX + certificate.id,
+                new ByteArrayInputStream(body), metadata)));
+    }
+
+    public Certificate getCertificateMetadata(String metadataKey) {
+        return limited("getCertificateMetadata", () -> {
+            try (S3Object object = s3Client.getObject(bucketName, metadataKey)) {
+                return CertificateCodec.fromBytes(object.getObjectContent().readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public void deleteCertificateMetadata(Long id) {
+        limited("deleteCertificateMetadata", () -> s3Client.deleteObject(bucketName, METADATA_PREFIX + id));
+    }
+
+    // Hands each listing page (up to 1000 keys) to the consumer as soon as it arrives
+    public void listCertificateMetadataKeys(Consumer<List<String>> pageConsumer) {
+        ListObjectsV2Request listRequest = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(METADATA_PREFIX);
+        ListObjectsV2Result listing;
+        do {
+            listing = limited("listCertificateMetadataKeys", () -> s3Client.listObjectsV2(listRequest));
+            List<String> keys = new ArrayList<>(listing.getObjectSummaries().size());
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                keys.add(summary.getKey());
+            }
+            pageConsumer.accept(keys);
+            listRequest.setContinuationToken(listing.getNextContinuationToken());
+        } while (listing.isTruncated());
+    }
+
+    // Empty marker objects; the name carries everything, so nodes sync with a LIST alone
+    public void putRevocation(String name) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(0);
+        limited("putRevocation", () -> s3Client.putObject(new PutObjectRequest(bucketName, REVOCATIONS_PREFIX + name,
+                new ByteArrayInputStream(new byte[0]), metadata)));
+    }
+
+    public List<String> listRevocations() {
+        ListObjectsV2Request listRequest = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(REVOCATIONS_PREFIX);
+        List<String> names = new ArrayList<>();
+        ListObjectsV2Result listing;
+        do {
+            listing = limited("listRevocations", () -> s3Client.listObjectsV2(listRequest));
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                names.add(summary.getKey().substring(REVOCATIONS_PREFIX.length()));
+            }
+            listRequest.setContinuationToken(listing.getNextContinuationToken());
+        } while (listing.isTruncated());
+        return names;
+    }
+
+    public void deleteRevocation(String name) {
+        limited("deleteRevocation", () -> s3Client.deleteObject(bucketName, REVOCATIONS_PREFIX + name));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void limited(String operation, Runnable call) {
+        limited(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> T limited(String operation, Supplier<T> call) {
+        acquirePermit(operation);
+        try {
+            return timed(operation, call);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // The permit stays taken until the caller closes (or aborts) the object content.
+    // Only the wait for the response headers is timed; reading the body is the caller's.
+    private S3Object limitedStream(String operation, String key, Supplier<S3Object> call) {
+        acquirePermit(operation);
+        RequestEvents.S3FirstByte event = new RequestEvents.S3FirstByte();
+        event.begin();
+        try {
+            S3Object object = timed(operation, call);
+            event.succeeded = true;
+            S3ObjectInputStream content = object.getObjectContent();
+            object.setObjectContent(new S3ObjectInputStream(new PermitReleasingStream(content), content.getHttpRequest()));
+            return object;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.key = key;
+                event.commit();
+            }
+        }
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            String result = outcome;
+            requestTimers.computeIfAbsent(operation + ":" + result, tags -> Timer.builder("certhub.s3.requests")
+                            .description("S3 calls, excluding the wait for a permit")
+                            .tag("operation", operation)
+                            .tag("outcome", result)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void acquirePermit(String operation) {
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            String result = Boolean.toString(acquired);
+            permitWaitTimers.computeIfAbsent(operation + ":" + result, tags -> Timer.builder("certhub.s3.permit.wait")
+                            .description("Time spent waiting for one of the capped S3 slots")
+                            .tag("operation", operation)
+                            .tag("acquired", result)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new S3BusyException(Math.max(1, acquireTimeout.toSeconds()));
+        }
+    }
+
+    private class PermitReleasingStream extends FilterInputStream {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    // Every S3 slot stayed busy for the whole acquire timeout
+    public static class S3BusyException extends RuntimeException {
+        public final long retryAfterSeconds;
+
+        public S3BusyException(long retryAfterSeconds) {
+            super("Too many concurrent storage requests");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    private String newObjectKey(String fileName) {
+        return UUID.randomUUID().toString() + "-" + fileName;
+    }
 }
\ No newline at end of file
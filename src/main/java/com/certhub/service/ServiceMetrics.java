@@ -0,0 +1,71 @@
+package com.certhub.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+// Gauges over state the services already keep (sessions, the BCrypt pool, S3 slots), read at
+// scrape time so the request paths pay nothing for them. Also turns on percentile histograms
+// for the HTTP server timings, so p95/p99 per route can be aggregated across nodes.
+@Singleton
+public class ServiceMetrics implements MeterBinder {
+
+    @Inject
+    AuthService authService;
+
+    @Inject
+    SessionTokenService sessionTokenService;
+
+    @Inject
+    CredentialStore credentialStore;
+
+    @Inject
+    S3Service s3Service;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("certhub.sessions.active", authService, AuthService::activeSessionCount)
+                .description("In-memory login sessions")
+                .register(registry);
+        Gauge.builder("certhub.sessions.revoked", sessionTokenService, SessionTokenService::revokedCount)
+                .description("Revoked session tokens not yet expired")
+                .register(registry);
+
+        Gauge.builder("certhub.auth.hash.queue", credentialStore, CredentialStore::queueDepth)
+                .description("Password checks waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("certhub.auth.hash.active", credentialStore, CredentialStore::activeHashes)
+                .register(registry);
+        FunctionCounter.builder("certhub.auth.hash.rejected", credentialStore, CredentialStore::rejectedHashes)
+                .description("Logins turned away because the hashing queue was full")
+                .register(registry);
+
+        Gauge.builder("certhub.s3.permits.available", s3Service, S3Service::availablePermits)
+                .description("Free slots under aws.s3.max-concurrent-requests")
+                .register(registry);
+    }
+
+    @Produces
+    @Singleton
+    MeterFilter httpServerHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith("http.server.requests")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package com.certhub.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// Login sessions keyed by token, each with a primitive epoch-millis deadline. Expiry runs on a
+// hashed timing wheel sized to cover one TTL: a session is filed under the tick it expires in and
+// expire() only visits the slots whose time has come, so neither requests nor the reaper ever
+// walk the whole map. With sliding expiration a lookup just moves the deadline forward; when the
+// reaper later meets the session in its old slot it re-files it instead of dropping it.
+public class SessionStore {
+
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final boolean sliding;
+    private final LongSupplier clock;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Slot[] wheel;
+    private final int mask;
+    // Last tick whose slot has been processed; only touched inside expire()
+    private long reapedTick;
+
+    public SessionStore(long ttlMillis, long tickMillis, boolean sliding) {
+        this(ttlMillis, tickMillis, sliding, System::currentTimeMillis);
+    }
+
+    SessionStore(long ttlMillis, long tickMillis, boolean sliding, LongSupplier clock) {
+        if (ttlMillis <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("Session TTL and tick must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = tickMillis;
+        this.sliding = sliding;
+        this.clock = clock;
+        int slots = Integer.highestOneBit((int) Math.min(1 << 20, ttlMillis / tickMillis + 2) - 1) << 1;
+        this.wheel = new Slot[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new Slot();
+        }
+        this.mask = slots - 1;
+        this.reapedTick = clock.getAsLong() / tickMillis;
+    }
+
+    public String create(String username) {
+        Session session = new Session(UUID.randomUUID().toString(), username, clock.getAsLong() + ttlMillis);
+        sessions.put(session.token, session);
+        file(session);
+        return session.token;
+    }
+
+    // The live session for a token, or null; a lookup slides the deadline when enabled
+    public Session get(String token) {
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        long expiresAt = session.expiresAt;
+        if (expiresAt <= now) {
+            sessions.remove(token, session);
+            return null;
+        }
+        // Only write once the deadline would move by a tick, so hot sessions are not
+        // rewritten (and their cache line bounced between cores) on every request
+        if (sliding && now + ttlMillis - expiresAt >= tickMillis) {
+            session.expiresAt = now + ttlMillis;
+        }
+        return session;
+    }
+
+    public void remove(String token) {
+        sessions.remove(token);
+    }
+
+    public void clear() {
+        sessions.clear();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Drops every session whose deadline has passed; returns how many were removed.
+    // Cost is proportional to the sessions filed in the elapsed ticks, not to the map size.
+    public synchronized int expire() {
+        long now = clock.getAsLong();
+        long nowTick = now / tickMillis;
+        // After a long pause one pass over the wheel already sees every slot
+        long from = Math.max(reapedTick + 1, nowTick - mask);
+        int expired = 0;
+        for (long tick = from; tick <= nowTick; tick++) {
+            for (Session session : wheel[(int) (tick & mask)].drain()) {
+                if (sessions.get(session.token) != session) {
+                    continue; // logged out or replaced
+                }
+                if (session.expiresAt <= now) {
+                    if (sessions.remove(session.token, session)) {
+                        expired++;
+                    }
+                } else {
+                    file(session);
+                }
+            }
+        }
+        reapedTick = nowTick;
+        return expired;
+    }
+
+    // Filed under the first tick that starts at or after the deadline, so the slot is
+    // never processed while the session is still valid (unless it slid in the meantime)
+    private void file(Session session) {
+        long tick = (session.expiresAt + tickMillis - 1) / tickMillis;
+        wheel[(int) (tick & mask)].add(session);
+    }
+
+    public static class Session {
+        public final String token;
+        public final String username;
+        volatile long expiresAt;
+
+        Session(String token, String username, long expiresAt) {
+            this.token = token;
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    // Logins are rare next to lookups, so a plain lock per slot is enough
+    private static class Slot {
+        private List<Session> entries = new ArrayList<>();
+
+        synchronized void add(Session session) {
+            entries.add(session);
+        }
+
+        synchronized List<Session> drain() {
+            List<Session> drained = entries;
+            entries = new ArrayList<>();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.certhub.service;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stateless sessions for running several nodes behind a load balancer: the cookie is a signed
+// token (see SessionTokenSigner) rather than a key into this node's memory. Logging out still has
+// to reach every node, so revoked token nonces are written to S3 as "<expiresAt>-<nonce>" marker
+// objects and each node polls them into a local set. Entries only live until the token would
+// have expired anyway, which keeps the list small.
+@ApplicationScoped
+public class SessionTokenService {
+
+    private static final Logger LOG = Logger.getLogger(SessionTokenService.class);
+
+    @ConfigProperty(name = "app.session.mode", defaultValue = "memory")
+    String sessionMode;
+
+    // "<id>:<base64 secret>" entries; the first signs new tokens, all of them are accepted
+    @ConfigProperty(name = "app.session.signing-keys")
+    Optional<List<String>> signingKeys;
+
+    @ConfigProperty(name = "app.session.ttl", defaultValue = "24h")
+    Duration sessionTtl;
+
+    @Inject
+    S3Service s3Service;
+
+    // Revoked nonce -> expiry of the token it belonged to
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private SessionTokenSigner signer;
+
+    @PostConstruct
+    void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (signingKeys.isEmpty() || signingKeys.get().isEmpty()) {
+            throw new IllegalStateException("app.session.mode=token requires app.session.signing-keys");
+        }
+        signer = new SessionTokenSigner(SessionTokenSigner.parseKeys(signingKeys.get()));
+    }
+
+    public boolean isEnabled() {
+        return "token".equalsIgnoreCase(sessionMode);
+    }
+
+    public String issue(String username) {
+        return signer.issue(username, System.currentTimeMillis() + sessionTtl.toMillis());
+    }
+
+    // Claims of a valid, unexpired and unrevoked token, or null
+    public SessionTokenSigner.Claims verify(String token) {
+        SessionTokenSigner.Claims claims = signer.verify(token);
+        if (claims == null || revoked.containsKey(claims.nonce)) {
+            return null;
+        }
+        return claims;
+    }
+
+    public void revoke(String token) {
+        SessionTokenSigner.Claims claims = verify(token);
+        if (claims == null) {
+            return;
+        }
+        revoked.put(claims.nonce, claims.expiresAt);
+        try {
+            s3Service.putRevocation(claims.expiresAt + "-" + claims.nonce);
+        } catch (RuntimeException e) {
+            // Still revoked on this node; other nodes accept the token until it expires
+            LOG.warnf(e, "Failed to publish session revocation");
+        }
+    }
+
+    @Scheduled(every = "${app.session.revocation-sync-interval:15s}")
+    void syncRevocations() {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        try {
+            for (String name : s3Service.listRevocations()) {
+                int dash = name.indexOf('-');
+                long expiresAt = dash > 0 ? parseExpiry(name.substring(0, dash)) : -1;
+                if (expiresAt > now) {
+                    revoked.putIfAbsent(name.substring(dash + 1), expiresAt);
+                } else {
+                    // Every node prunes; a second delete of the same marker is harmless
+                    s3Service.deleteRevocation(name);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Failed to sync session revocations");
+        }
+    }
+
+    public int revokedCount() {
+        return revoked.size();
+    }
+
+    private static long parseExpiry(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.certhub.service;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Self-contained session tokens: <key id>.<expiry, base 36 millis>.<nonce>.<user, base64url>.<HMAC-SHA256>
+// Any node holding the key validates them without shared state. Tokens are signed with the first
+// configured key and accepted under any configured key, so a key is rotated by putting the new one
+// first and dropping the old one once its last tokens have expired. Verification works on the
+// token's characters in place (thread-local scratch, cached Mac) and compares MACs in constant time.
+public class SessionTokenSigner {
+
+    private static final int MAC_BYTES = 32;
+    private static final int MAC_CHARS = 43;
+    private static final int MAX_TOKEN_CHARS = 512;
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final SigningKey[] keys;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public SessionTokenSigner(Map<String, byte[]> keysById) {
+        this(keysById, System::currentTimeMillis);
+    }
+
+    SessionTokenSigner(Map<String, byte[]> keysById, LongSupplier clock) {
+        if (keysById.isEmpty()) {
+            throw new IllegalArgumentException("At least one signing key is required");
+        }
+        this.keys = new SigningKey[keysById.size()];
+        int i = 0;
+        for (Map.Entry<String, byte[]> key : keysById.entrySet()) {
+            if (key.getKey().isEmpty() || key.getKey().indexOf('.') >= 0) {
+                throw new IllegalArgumentException("Invalid signing key id: " + key.getKey());
+            }
+            if (key.getValue().length < 32) {
+                throw new IllegalArgumentException("Signing key " + key.getKey() + " must be at least 256 bits");
+            }
+            keys[i] = new SigningKey(i, key.getKey(), new SecretKeySpec(key.getValue(), "HmacSHA256"));
+            i++;
+        }
+        this.clock = clock;
+    }
+
+    // Entries look like "<id>:<base64 secret>", newest (signing) key first
+    public static Map<String, byte[]> parseKeys(List<String> entries) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        for (String entry : entries) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Signing keys must look like <id>:<base64 secret>");
+            }
+            keys.put(entry.substring(0, colon).trim(), Base64.getDecoder().decode(entry.substring(colon + 1).trim()));
+        }
+        return keys;
+    }
+
+    public String issue(String username, long expiresAt) {
+        byte[] nonce = new byte[12];
+        random.nextBytes(nonce);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = keys[0].id + "." + Long.toString(expiresAt, 36) + "." + encoder.encodeToString(nonce)
+                + "." + encoder.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        Mac mac = scratch.get().mac(keys[0]);
+        return payload + "." + encoder.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // The token's claims, or null if it is malformed, signed with an unknown key, tampered with or expired
+    public Claims verify(String token) {
+        int length = token == null ? 0 : token.length();
+        if (length == 0 || length > MAX_TOKEN_CHARS) {
+            return null;
+        }
+        int keyEnd = token.indexOf('.');
+        int expiryEnd = keyEnd < 0 ? -1 : token.indexOf('.', keyEnd + 1);
+        int nonceEnd = expiryEnd < 0 ? -1 : token.indexOf('.', expiryEnd + 1);
+        int userEnd = nonceEnd < 0 ? -1 : token.indexOf('.', nonceEnd + 1);
+        if (userEnd < 0 || length - userEnd - 1 != MAC_CHARS) {
+            return null;
+        }
+        SigningKey key = keyFor(token, keyEnd);
+        long expiresAt = parseBase36(token, keyEnd + 1, expiryEnd);
+        if (key == null || expiresAt <= clock.getAsLong()) {
+            return null;
+        }
+
+        Scratch buffers = scratch.get();
+        byte[] payload = buffers.payload;
+        for (int i = 0; i < userEnd; i++) {
+            char c = token.charAt(i);
+            if (c >= 128) {
+                return null;
+            }
+            payload[i] = (byte) c;
+        }
+        if (!decodeMac(token, userEnd + 1, buffers.presented)) {
+            return null;
+        }
+        Mac mac = buffers.mac(key);
+        mac.update(payload, 0, userEnd);
+        try {
+            mac.doFinal(buffers.expected, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        int difference = 0;
+        for (int i = 0; i < MAC_BYTES; i++) {
+            difference |= buffers.expected[i] ^ buffers.presented[i];
+        }
+        if (difference != 0) {
+            return null;
+        }
+
+        byte[] user = Base64.getUrlDecoder().decode(token.substring(nonceEnd + 1, userEnd));
+        return new Claims(new String(user, StandardCharsets.UTF_8), token.substring(expiryEnd + 1, nonceEnd), expiresAt);
+    }
+
+    private SigningKey keyFor(String token, int keyEnd) {
+        for (SigningKey key : keys) {
+            if (key.id.length() == keyEnd && token.startsWith(key.id)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static long parseBase36(String token, int from, int to) {
+        if (to - from < 1 || to - from > 12) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(token.charAt(i), 36);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 36 + digit;
+        }
+        return value;
+    }
+
+    // 43 unpadded base64url characters -> 32 bytes
+    private static boolean decodeMac(String token, int from, byte[] out) {
+        int bits = 0;
+        int bitCount = 0;
+        int n = 0;
+        for (int i = from; i < from + MAC_CHARS; i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[n++] = (byte) (bits >> bitCount);
+            }
+        }
+        return n == MAC_BYTES;
+    }
+
+    public static class Claims {
+        public final String username;
+        // Random per token; what a revocation refers to
+        public final String nonce;
+        public final long expiresAt;
+
+        Claims(String username, String nonce, long expiresAt) {
+            this.username = username;
+            this.nonce = nonce;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class SigningKey {
+        final int index;
+        final String id;
+        final SecretKeySpec secret;
+
+        SigningKey(int index, String id, SecretKeySpec secret) {
+            this.index = index;
+            this.id = id;
+            this.secret = secret;
+        }
+    }
+
+    // Mac instances are not thread-safe and costly to create, so each thread keeps its own
+    private class Scratch {
+        final byte[] payload = new byte[MAX_TOKEN_CHARS];
+        final byte[] presented = new byte[MAC_BYTES];
+        final byte[] expected = new byte[MAC_BYTES];
+        final Mac[] macs = new Mac[keys.length];
+
+        Mac mac(SigningKey key) {
+            Mac mac = macs[key.index];
+            if (mac == null) {
+                try {
+                    mac = Mac.getInstance("HmacSHA256");
+                    mac.init(key.secret);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 unavailable", e);
+                }
+                macs[key.index] = mac;
+            }
+            return mac;
+        }
+    }
+}
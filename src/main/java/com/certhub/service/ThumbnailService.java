@@ -0,0 +1,345 @@
+package com.certhub.service;
+
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.certhub.entity.Certificate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.quarkus.runtime.configuration.MemorySize;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Downscaled JPEG variants of certificates, so list and share views do not load the full file.
+// An upload queues one job on a small bounded pool; the job turns the original into one raster
+// no larger than about twice the biggest variant (images are subsampled while decoding, PDFs
+// have their first page rendered at that scale) and stores a JPEG per configured size under
+// thumbnails/<size>/<s3Key>.jpg. Until the variants exist (or when the queue is full) there is
+// no variant key and callers fall back to the original.
+@ApplicationScoped
+public class ThumbnailService {
+
+    private static final Logger LOG = Logger.getLogger(ThumbnailService.class);
+
+    private static final String PREFIX = "thumbnails/";
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    @ConfigProperty(name = "app.thumbnail.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // Longest edge in pixels of each stored variant
+    @ConfigProperty(name = "app.thumbnail.sizes", defaultValue = "480,1200")
+    List<Integer> sizes;
+
+    @ConfigProperty(name = "app.thumbnail.quality", defaultValue = "0.8")
+    float quality;
+
+    @ConfigProperty(name = "app.thumbnail.threads", defaultValue = "2")
+    int threads;
+
+    @ConfigProperty(name = "app.thumbnail.queue", defaultValue = "256")
+    int queue;
+
+    // Bigger originals (panoramas, decompression bombs) are left without thumbnails
+    @ConfigProperty(name = "app.thumbnail.max-source-pixels", defaultValue = "100000000")
+    long maxSourcePixels;
+
+    // PDF rendering (fonts, embedded images) is the heavy kind of job; at most this many at once
+    @ConfigProperty(name = "app.thumbnail.pdf.max-concurrent-renders", defaultValue = "1")
+    int maxConcurrentRenders;
+
+    // Larger PDFs are left without a rendered preview
+    @ConfigProperty(name = "app.thumbnail.pdf.max-file-size", defaultValue = "64M")
+    MemorySize maxPdfSize;
+
+    // Heap PDFBox may use for the parsed document; beyond it, it spills to a scratch file
+    @ConfigProperty(name = "app.thumbnail.pdf.max-main-memory", defaultValue = "32M")
+    MemorySize maxPdfMainMemory;
+
+    @Inject
+    S3Service s3Service;
+
+    @Inject
+    ObjectCacheService objectCacheService;
+
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+    // Originals whose variants are known to be stored; they never change once written
+    private Cache<String, Boolean> ready;
+    // Failed originals are not retried on every request, only after a while
+    private Cache<String, Boolean> failed;
+    private int[] variantSizes;
+    private ThreadPoolExecutor pool;
+    private Semaphore pdfRenders;
+
+    @PostConstruct
+    void init() {
+        variantSizes = sizes.stream().mapToInt(Integer::intValue).filter(size -> size > 0).sorted().distinct().toArray();
+        if (variantSizes.length == 0) {
+            throw new IllegalStateException("app.thumbnail.sizes needs at least one positive size");
+        }
+        ready = Caffeine.newBuilder().maximumSize(100_000).build();
+        failed = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofMinutes(10)).build();
+        pdfRenders = new Semaphore(maxConcurrentRenders);
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public boolean supports(Certificate certificate) {
+        return enabled && certificate.fileType != null
+                && (certificate.fileType.startsWith("image/") || isPdf(certificate));
+    }
+
+    public static boolean isPdf(Certificate certificate) {
+        return "application/pdf".equals(certificate.fileType);
+    }
+
+    // Queues variant generation after an upload; a full queue just leaves it to the first request
+    public void schedule(Certificate certificate) {
+        if (!supports(certificate) || pending.putIfAbsent(certificate.s3Key, Boolean.TRUE) != null) {
+            return;
+        }
+        String s3Key = certificate.s3Key;
+        boolean pdf = isPdf(certificate);
+        Long fileSize = certificate.fileSize;
+        try {
+            pool.execute(() -> {
+                try {
+                    generate(s3Key, pdf, fileSize);
+                    ready.put(s3Key, Boolean.TRUE);
+                } catch (Exception e) {
+                    failed.put(s3Key, Boolean.TRUE);
+                    LOG.warnf(e, "Thumbnail generation failed for %s", s3Key);
+                } finally {
+                    pending.remove(s3Key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(s3Key);
+        }
+    }
+
+    // The stored variant closest to (at least) the requested size, or null while there is none.
+    // Originals uploaded before thumbnails existed get theirs generated on the first request.
+    public String variantKey(Certificate certificate, int size) {
+        if (!supports(certificate)) {
+            return null;
+        }
+        String s3Key = certificate.s3Key;
+        if (ready.getIfPresent(s3Key) == null) {
+            if (pending.containsKey(s3Key) || failed.getIfPresent(s3Key) != null) {
+                return null;
+            }
+            // The largest variant is written last, so its presence means all of them are there
+            if (!s3Service.fileExists(keyFor(s3Key, variantSizes[variantSizes.length - 1]))) {
+                schedule(certificate);
+                return null;
+            }
+            ready.put(s3Key, Boolean.TRUE);
+        }
+        return keyFor(s3Key, pickSize(variantSizes, size));
+    }
+
+    public void delete(Certificate certificate) {
+        if (!supports(certificate)) {
+            return;
+        }
+        for (int size : variantSizes) {
+            String key = keyFor(certificate.s3Key, size);
+            s3Service.deleteFile(key);
+            objectCacheService.invalidate(key);
+        }
+        ready.invalidate(certificate.s3Key);
+    }
+
+    public int queueDepth() {
+        return pool.getQueue().size();
+    }
+
+    private void generate(String s3Key, boolean pdf, Long fileSize) throws IOException, InterruptedException {
+        int largest = variantSizes[variantSizes.length - 1];
+        BufferedImage source = pdf ? renderPdf(s3Key, fileSize, largest) : decodeImage(s3Key, largest);
+        for (int size : variantSizes) {
+            s3Service.putDerivedFile(keyFor(s3Key, size), encode(scale(source, size), quality), CONTENT_TYPE);
+        }
+    }
+
+    private BufferedImage decodeImage(String s3Key, int maxEdge) throws IOException {
+        S3ObjectInputStream content = s3Service.getFile(s3Key).getObjectContent();
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            return decode(input, maxEdge, maxSourcePixels);
+        } finally {
+            // The decoder may stop before the end of the object; do not drain the rest
+            content.abort();
+        }
+    }
+
+    // PDFBox wants random access, so the PDF is read from the local object cache or a temp file
+    private BufferedImage renderPdf(String s3Key, Long fileSize, int maxEdge) throws IOException, InterruptedException {
+        if (fileSize != null && fileSize > maxPdfSize.asLongValue()) {
+            throw new IOException("PDF too large for a rendered preview: " + fileSize + " bytes");
+        }
+        pdfRenders.acquire();
+        Path temp = null;
+        try {
+            Path file = objectCacheService.getFile(s3Key);
+            if (file == null) {
+                temp = Files.createTempFile("certhub-render-", ".pdf");
+                try (InputStream content = s3Service.getFile(s3Key).getObjectContent()) {
+                    Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                file = temp;
+            }
+            return renderFirstPage(file, maxEdge, maxPdfMainMemory.asLongValue());
+        } finally {
+            pdfRenders.release();
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    static String keyFor(String s3Key, int size) {
+        return PREFIX + size + "/" + s3Key + ".jpg";
+    }
+
+    // Smallest variant at least as large as requested, else the largest; 0 picks the smallest
+    static int pickSize(int[] variantSizes, int requested) {
+        for (int size : variantSizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return variantSizes[variantSizes.length - 1];
+    }
+
+    // Reads at the coarsest subsampling that still leaves twice the target edge, so memory
+    // stays around (2 * maxEdge)^2 pixels whatever the original's dimensions
+    static BufferedImage decode(ImageInputStream input, int maxEdge, long maxSourcePixels) throws IOException {
+        if (input == null) {
+            throw new IOException("No image data");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("Unsupported image format");
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            if ((long) width * height > maxSourcePixels) {
+                throw new IOException("Image too large for thumbnails: " + width + "x" + height);
+            }
+            int subsampling = Math.max(1, Math.max(width, height) / (2 * maxEdge));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    // Renders at the scale that fits the page into twice maxEdge, so the raster is bounded
+    // however large the page claims to be; embedded images are subsampled to match
+    static BufferedImage renderFirstPage(Path pdf, int maxEdge, long maxMainMemory) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf.toFile(), MemoryUsageSetting.setupMixed(maxMainMemory))) {
+            if (document.getNumberOfPages() == 0) {
+                throw new IOException("PDF has no pages");
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            float longestEdge = Math.max(box.getWidth(), box.getHeight());
+            if (!(longestEdge > 0)) {
+                throw new IOException("PDF page has no size");
+            }
+            PDFRenderer renderer = new PDFRenderer(document);
+            renderer.setSubsamplingAllowed(true);
+            return renderer.renderImage(0, 2f * maxEdge / longestEdge, ImageType.RGB);
+        }
+    }
+
+    // Fits the longest edge into maxEdge (never enlarging) by repeated halving, then one last
+    // step: a single large bilinear step would skip most source pixels and alias
+    static BufferedImage scale(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            // Always drawn at least once, which also converts grey or indexed images to RGB
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    static byte[] encode(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,89 @@
+package com.certhub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Certificate bytes moving through the API. Counters are tagged with the endpoint's route
+// template (e.g. /api/certificates/{id}/download) so their cardinality stays fixed, and the
+// streams in progress are long task timers, which report how many are open and for how long.
+@ApplicationScoped
+public class TransferMetrics {
+
+    private static final String BYTES = "certhub.transfer.bytes";
+    private static final String STREAMS = "certhub.transfer.active";
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, Counter> bytesOut = new ConcurrentHashMap<>();
+    private final Map<String, Counter> bytesIn = new ConcurrentHashMap<>();
+    private final Map<String, Counter> redirected = new ConcurrentHashMap<>();
+    private LongTaskTimer downloads;
+    private LongTaskTimer uploads;
+    private DistributionSummary uploadSizes;
+
+    @PostConstruct
+    void init() {
+        downloads = LongTaskTimer.builder(STREAMS)
+                .description("Response streams being written to clients")
+                .tag("direction", "out")
+                .register(registry);
+        uploads = LongTaskTimer.builder(STREAMS)
+                .description("Request bodies being streamed to storage")
+                .tag("direction", "in")
+                .register(registry);
+        uploadSizes = DistributionSummary.builder("certhub.upload.size")
+                .description("Size of stored certificate files")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1024.0)
+                .maximumExpectedValue(1024.0 * 1024 * 1024)
+                .register(registry);
+    }
+
+    // Looked up once per response; the writer increments it for every chunk and TransferMetricsFilter
+    // for cached files
+    public Counter bytesOut(String endpoint) {
+        return bytesOut.computeIfAbsent(endpoint, e -> counter(e, "out"));
+    }
+
+    public void received(String endpoint, long bytes) {
+        bytesIn.computeIfAbsent(endpoint, e -> counter(e, "in")).increment(bytes);
+    }
+
+    // Objects handed out as presigned URLs. S3 sends them, so they are kept apart from our own egress,
+    // and the count is what was handed out, not what the client went on to download.
+    public void redirected(String endpoint, long bytes) {
+        redirected.computeIfAbsent(endpoint, e -> counter(e, "redirect")).increment(bytes);
+    }
+
+    // A certificate file was stored, however it arrived
+    public void uploaded(long size) {
+        uploadSizes.record(size);
+    }
+
+    public LongTaskTimer.Sample downloadStarted() {
+        return downloads.start();
+    }
+
+    public LongTaskTimer.Sample uploadStarted() {
+        return uploads.start();
+    }
+
+    private Counter counter(String endpoint, String direction) {
+        return Counter.builder(BYTES)
+                .description("Certificate bytes transferred")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.certhub.service;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.resteasy.reactive.PathPart;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Counts bytes-out for file entities, which Vert.x sends with sendFile and so never pass
+// through BufferStreamWriter. Their length is known before anything is written, so they are
+// counted here by route template, the same tag the writer uses for streamed bodies.
+@Provider
+public class TransferMetricsFilter implements ContainerResponseFilter {
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    // Resolved once per resource method instead of reading annotations on every response
+    private final Map<Method, String> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object entity = responseContext.getEntity();
+        if (!(entity instanceof java.nio.file.Path || entity instanceof PathPart)
+                || HttpMethod.HEAD.equals(requestContext.getMethod())) {
+            return;
+        }
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return;
+        }
+        long bytes = length(entity, responseContext.getLength());
+        if (bytes > 0) {
+            transferMetrics.bytesOut(endpoints.computeIfAbsent(method, this::endpoint)).increment(bytes);
+        }
+    }
+
+    private static long length(Object entity, long contentLength) {
+        if (entity instanceof PathPart part) {
+            return part.count;
+        }
+        if (contentLength >= 0) {
+            return contentLength;
+        }
+        try {
+            return Files.size((java.nio.file.Path) entity);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // The route template, e.g. /api/certificates/{id}/download
+    private String endpoint(Method method) {
+        Path classPath = resourceInfo.getResourceClass().getAnnotation(Path.class);
+        Path methodPath = method.getAnnotation(Path.class);
+        return (classPath != null ? classPath.value() : "") + (methodPath != null ? methodPath.value() : "");
+    }
+}
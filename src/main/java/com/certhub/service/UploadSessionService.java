@@ -0,0 +1,104 @@
+package com.certhub.service;
+
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.certhub.entity.UploadSession;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+public class UploadSessionService {
+
+    // S3 rejects multipart parts below 5MB unless it is the last one
+    public static final long CHUNK_SIZE = 5 * 1024 * 1024;
+
+    private static final Logger LOG = Logger.getLogger(UploadSessionService.class);
+
+    @ConfigProperty(name = "app.upload.session-timeout", defaultValue = "1h")
+    Duration sessionTimeout;
+
+    @Inject
+    S3Service s3Service;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public UploadSession createSession(String title, String credentialLink, String fileName,
+                                       String fileType, long fileSize) {
+        UploadSession session = new UploadSession(title, credentialLink, fileName, fileType, fileSize, CHUNK_SIZE);
+        InitiateMultipartUploadResult result = s3Service.initiateMultipartUpload(fileName, fileType);
+        session.s3Key = result.getKey();
+        session.s3UploadId = result.getUploadId();
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    public UploadSession findById(String id) {
+        return sessions.get(id);
+    }
+
+    public void uploadPart(UploadSession session, int partNumber, InputStream partStream) {
+        session.lastActivityAt = System.currentTimeMillis();
+        String eTag = s3Service.uploadPart(session.s3Key, session.s3UploadId, partNumber,
+                partStream, session.expectedPartSize(partNumber));
+        session.partETags.put(partNumber, eTag);
+        session.lastActivityAt = System.currentTimeMillis();
+    }
+
+    // Returns false if another request already completed or aborted the session
+    public boolean completeSession(UploadSession session) {
+        if (sessions.remove(session.id) == null) {
+            return false;
+        }
+        try {
+            s3Service.completeMultipartUpload(session.s3Key, session.s3UploadId, session.partETags);
+            return true;
+        } catch (RuntimeException e) {
+            // Keep the session so the client can retry the completion
+            sessions.put(session.id, session);
+            throw e;
+        }
+    }
+
+    public void abortSession(UploadSession session) {
+        sessions.remove(session.id);
+        s3Service.abortMultipartUpload(session.s3Key, session.s3UploadId);
+    }
+
+    @Scheduled(every = "${app.upload.sweep-interval:15m}", delayed = "${app.upload.sweep-interval:15m}")
+    void sweepAbandonedUploads() {
+        long cutoff = System.currentTimeMillis() - sessionTimeout.toMillis();
+
+        for (UploadSession session : sessions.values()) {
+            if (session.lastActivityAt < cutoff) {
+                try {
+                    abortSession(session);
+                } catch (Exception e) {
+                    LOG.warnf(e, "Failed to abort abandoned upload %s", session.id);
+                }
+            }
+        }
+
+        // Multipart uploads left behind by a restart are no longer tracked in memory
+        Set<String> liveUploadIds = sessions.values().stream()
+                .map(session -> session.s3UploadId)
+                .collect(Collectors.toSet());
+        try {
+            int aborted = s3Service.abortMultipartUploadsInitiatedBefore(new Date(cutoff), liveUploadIds);
+            if (aborted > 0) {
+                LOG.infof("Aborted %d orphaned multipart uploads", aborted);
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to sweep orphaned multipart uploads", e);
+        }
+    }
+}
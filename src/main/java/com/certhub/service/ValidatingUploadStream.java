@@ -0,0 +1,110 @@
+package com.certhub.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Wraps an incoming upload body so size and file type are enforced while bytes
+// arrive instead of after the whole file has been buffered on the heap
+public class ValidatingUploadStream extends FilterInputStream {
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F'};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private final byte[] header;
+    private final long maxBytes;
+    private int headerPos;
+    private long bytesRead;
+    private UploadRejectedException rejection;
+
+    private ValidatingUploadStream(InputStream in, byte[] header, long maxBytes) {
+        super(in);
+        this.header = header;
+        this.maxBytes = maxBytes;
+        this.bytesRead = header.length;
+    }
+
+    // Reads just enough of the body to check the magic bytes, then replays them
+    // in front of the rest of the stream
+    public static ValidatingUploadStream open(InputStream in, String contentType, long maxBytes)
+            throws IOException {
+        byte[] magic = magicFor(contentType);
+        if (magic == null) {
+            throw new UploadRejectedException("Only PDF and JPEG files are allowed");
+        }
+        byte[] header = in.readNBytes(magic.length);
+        if (!Arrays.equals(header, magic)) {
+            throw new UploadRejectedException("File content does not match a PDF or JPEG file");
+        }
+        return new ValidatingUploadStream(in, header, maxBytes);
+    }
+
+    // Size limit only, for chunks after the first one of a resumable upload
+    public static ValidatingUploadStream bounded(InputStream in, long maxBytes) {
+        return new ValidatingUploadStream(in, new byte[0], maxBytes);
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (rejection != null) {
+            throw rejection;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (headerPos < header.length) {
+            int n = Math.min(len, header.length - headerPos);
+            System.arraycopy(header, headerPos, b, off, n);
+            headerPos += n;
+            return n;
+        }
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            bytesRead += n;
+            if (bytesRead > maxBytes) {
+                // Sticky so a client retry cannot read past the limit either
+                rejection = new UploadRejectedException("Upload exceeds the allowed size");
+                throw rejection;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported on upload streams");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private static byte[] magicFor(String contentType) {
+        if ("application/pdf".equals(contentType)) {
+            return PDF_MAGIC;
+        }
+        if ("image/jpeg".equals(contentType) || "image/jpg".equals(contentType)) {
+            return JPEG_MAGIC;
+        }
+        return null;
+    }
+
+    public static class UploadRejectedException extends IOException {
+        public UploadRejectedException(String message) {
+            super(message);
+        }
+    }
+}
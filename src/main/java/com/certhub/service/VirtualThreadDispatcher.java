@@ -0,0 +1,27 @@
+package com.certhub.service;
+
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+// Runs S3-bound endpoint bodies on a virtual thread, so a slow S3 call parks a cheap thread
+// instead of holding a worker. On Java 17, or with quarkus.virtual-threads.enabled=false,
+// the executor falls back to the worker pool and behaviour matches plain blocking endpoints.
+// (@RunOnVirtualThread is rejected at build time while the compile target is below 21.)
+@ApplicationScoped
+public class VirtualThreadDispatcher {
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    public CompletionStage<Response> dispatch(Supplier<Response> call) {
+        return CompletableFuture.supplyAsync(call, virtualThreads);
+    }
+}
@@ -3,6 +3,12 @@
 class CertHubApp {
     constructor() {
         this.currentEditingId = null;
+        // Files above this size use resumable chunked uploads
+        this.chunkedUploadThreshold = 5 * 1024 * 1024;
+        this.parallelChunkUploads = 3;
+        // Dashboard pages are fetched with a cursor instead of all at once
+        this.pageSize = 24;
+        this.nextCursor = null;
         this.init();
     }
 
@@ -93,6 +99,18 @@ class CertHubApp {
             this.handleEdit();
         });
 
+        // Search certificates as the user types
+        let searchTimer = null;
+        document.getElementById('searchInput').addEventListener('input', (e) => {
+            clearTimeout(searchTimer);
+            searchTimer = setTimeout(() => this.searchCertificates(e.target.value.trim()), 250);
+        });
+
+        // Load more certificates
+        document.getElementById('loadMoreBtn').addEventListener('click', () => {
+            this.loadCertificates(this.nextCursor);
+        });
+
         // Logout button
         document.getElementById('logoutBtn').addEventListener('click', () => {
             this.handleLogout();
@@ -155,13 +173,19 @@ class CertHubApp {
     }
 
     // Load certificates
-    async loadCertificates() {
+    async loadCertificates(after = null) {
         try {
-            const response = await fetch('/api/certificates');
+            const params = new URLSearchParams({ limit: this.pageSize });
+            if (after) {
+                params.set('after', after);
+            }
+            const response = await fetch(`/api/certificates?${params}`);
 
             if (response.ok) {
-                const certificates = await response.json();
-                this.renderCertificates(certificates);
+                const page = await response.json();
+                this.renderCertificates(page.items, after !== null);
+                this.nextCursor = page.nextCursor;
+                document.getElementById('loadMoreBtn').style.display = page.nextCursor ? 'inline-block' : 'none';
             } else {
                 this.showAlert('Failed to load certificates', 'danger');
             }
@@ -171,11 +195,33 @@ class CertHubApp {
         }
     }
 
+    // Search certificates by title, file name or credential site
+    async searchCertificates(query) {
+        if (!query) {
+            this.loadCertificates();
+            return;
+        }
+        try {
+            const params = new URLSearchParams({ q: query, limit: 50 });
+            const response = await fetch(`/api/certificates/search?${params}`);
+
+            if (response.ok) {
+                this.renderCertificates(await response.json());
+                document.getElementById('loadMoreBtn').style.display = 'none';
+            } else {
+                this.showAlert('Search failed', 'danger');
+            }
+        } catch (error) {
+            console.error('Error searching certificates:', error);
+            this.showAlert('Search failed', 'danger');
+        }
+    }
+
     // Render certificates
-    renderCertificates(certificates) {
+    renderCertificates(certificates, append = false) {
         const container = document.getElementById('certificatesList');
         
-        if (certificates.length === 0) {
+        if (certificates.length === 0 && !append) {
             container.innerHTML = `
                 <div class="col-12">
                     <div class="empty-state">
@@ -188,7 +234,7 @@ class CertHubApp {
             return;
         }
 
-        container.innerHTML = certificates.map(cert => `
+        const html = certificates.map(cert => `
             <div class="col-md-4 mb-4">
                 <div class="card certificate-card">
                     <div class="certificate-preview" onclick="app.previewCertificate(${cert.id})">
@@ -224,6 +270,12 @@ class CertHubApp {
                 </div>
             </div>
         `).join('');
+
+        if (append) {
+            container.insertAdjacentHTML('beforeend', html);
+        } else {
+            container.innerHTML = html;
+        }
     }
 
     // Generate preview content for certificate tiles
@@ -231,9 +283,10 @@ class CertHubApp {
         if (cert.fileType.includes('pdf')) {
             return `
                 <div class="pdf-preview">
-                    <iframe src="/api/certificates/${cert.id}/preview" 
-                            style="width: 100%; height: 180px; border: none; pointer-events: none;">
-                    </iframe>
+                    <img src="/api/certificates/${cert.id}/thumbnail?size=480" 
+                         style="width: 100%; height: 180px; object-fit: cover; object-position: top;"
+                         alt="${cert.title}"
+                         onerror="app.showPdfFallback(this, '/api/certificates/${cert.id}/preview', 'height: 180px; border: none;')">
                     <div class="preview-overlay">
                         <i class="material-icons">picture_as_pdf</i>
                         <span>PDF</span>
@@ -243,7 +296,7 @@ class CertHubApp {
         } else if (cert.fileType.includes('image')) {
             return `
                 <div class="image-preview">
-                    <img src="/api/certificates/${cert.id}/preview" 
+                    <img src="/api/certificates/${cert.id}/thumbnail?size=480" 
                          style="width: 100%; height: 180px; object-fit: cover;"
                          alt="${cert.title}">
                     <div class="preview-overlay">
@@ -312,22 +365,10 @@ class CertHubApp {
             return;
         }
 
-        // Convert file to base64
-        const fileBase64 = await this.fileToBase64(file);
-
         try {
-            const response = await fetch('/api/certificates/upload', {
-                method: 'POST',
-                headers: {
-                    'Content-Type': 'application/json',
-                },
-                body: JSON.stringify({
-                    title: title,
-                    credentialLink: credentialLink,
-                    fileName: file.name,
-                    fileData: fileBase64
-                }),
-            });
+            const response = file.size > this.chunkedUploadThreshold
+                ? await this.uploadInChunks(file, title, credentialLink)
+                : await this.uploadStream(file, title, credentialLink);
 
             if (response.ok) {
                 this.showFormMessage('uploadMessage', 'Certificate uploaded successfully!', 'success');
@@ -346,20 +387,113 @@ class CertHubApp {
         }
     }
 
-    // Convert file to base64
-    fileToBase64(file) {
-        return new Promise((resolve, reject) => {
-            const reader = new FileReader();
-            reader.readAsDataURL(file);
-            reader.onload = () => {
-                // Remove the data:image/jpeg;base64, or data:application/pdf;base64, prefix
-                const base64 = reader.result.split(',')[1];
-                resolve(base64);
-            };
-            reader.onerror = error => reject(error);
+    // Stream the raw file body; metadata travels in the query string
+    uploadStream(file, title, credentialLink) {
+        const params = new URLSearchParams({
+            title: title,
+            credentialLink: credentialLink,
+            fileName: file.name
+        });
+
+        return fetch(`/api/certificates/upload/stream?${params}`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/octet-stream',
+            },
+            body: file,
         });
     }
 
+    // Resumable upload: chunks go up a few at a time and retrying the same file
+    // only resends the chunks the server has not acknowledged yet
+    async uploadInChunks(file, title, credentialLink) {
+        const resumeKey = `certhub-upload:${file.name}:${file.size}:${file.lastModified}`;
+        let session = null;
+
+        const savedSessionId = localStorage.getItem(resumeKey);
+        if (savedSessionId) {
+            const existing = await fetch(`/api/certificates/uploads/${savedSessionId}`);
+            if (existing.ok) {
+                session = await existing.json();
+            }
+        }
+
+        if (!session) {
+            const created = await fetch('/api/certificates/uploads', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                },
+                body: JSON.stringify({
+                    title: title,
+                    credentialLink: credentialLink,
+                    fileName: file.name,
+                    fileSize: file.size
+                }),
+            });
+            if (!created.ok) {
+                return created;
+            }
+            session = await created.json();
+            localStorage.setItem(resumeKey, session.sessionId);
+        }
+
+        const received = new Set(session.receivedParts);
+        const pending = [];
+        for (let part = 1; part <= session.totalParts; part++) {
+            if (!received.has(part)) {
+                pending.push(part);
+            }
+        }
+
+        const worker = async () => {
+            while (pending.length > 0) {
+                await this.uploadChunk(session, file, pending.shift());
+            }
+        };
+        await Promise.all(Array.from({ length: this.parallelChunkUploads }, worker));
+
+        const response = await fetch(`/api/certificates/uploads/${session.sessionId}/complete`, {
+            method: 'POST',
+        });
+        if (response.ok) {
+            localStorage.removeItem(resumeKey);
+        }
+        return response;
+    }
+
+    // Upload one chunk, retrying dropped connections and server errors with backoff
+    async uploadChunk(session, file, part) {
+        const start = (part - 1) * session.chunkSize;
+        const chunk = file.slice(start, Math.min(start + session.chunkSize, file.size));
+
+        for (let attempt = 1; ; attempt++) {
+            let response = null;
+            try {
+                response = await fetch(`/api/certificates/uploads/${session.sessionId}/parts/${part}`, {
+                    method: 'PUT',
+                    headers: {
+                        'Content-Type': 'application/octet-stream',
+                    },
+                    body: chunk,
+                });
+            } catch (error) {
+                if (attempt >= 5) {
+                    throw error;
+                }
+            }
+
+            if (response && response.ok) {
+                return;
+            }
+            if (response && (response.status < 500 || attempt >= 5)) {
+                const error = await response.json();
+                throw new Error(error.message || `Upload of part ${part} failed`);
+            }
+            await new Promise(resolve => setTimeout(resolve, attempt * 1000));
+        }
+    }
+
     // Edit certificate
     async editCertificate(id) {
         try {
@@ -567,20 +701,29 @@ class CertHubApp {
         detailsContainer.style.display = 'block';
     }
 
+    // The rendered first page is not there (yet): show the PDF itself instead
+    showPdfFallback(img, src, style) {
+        const iframe = document.createElement('iframe');
+        iframe.src = src;
+        iframe.style.cssText = 'width: 100%; pointer-events: none; ' + style;
+        img.replaceWith(iframe);
+    }
+
     // Generate full preview content for certificate view
     generateFullPreviewContent(certificate) {
         if (certificate.fileType.includes('pdf')) {
             return `
-                <div class="pdf-preview-large">
-                    <iframe src="/api/public/certificate/${certificate.shareableId}/preview#toolbar=0&navpanes=0&scrollbar=0" 
-                            style="width: 100%; height: 600px; border: 1px solid #ddd; border-radius: 4px; pointer-events: none;">
-                    </iframe>
+                <div class="pdf-preview-large text-center">
+                    <img src="/api/public/certificate/${certificate.shareableId}/thumbnail?size=1200" 
+                         style="max-width: 100%; height: auto; max-height: 600px; border: 1px solid #ddd; border-radius: 4px;"
+                         alt="${certificate.title}"
+                         onerror="app.showPdfFallback(this, '/api/public/certificate/${certificate.shareableId}/preview#toolbar=0&navpanes=0&scrollbar=0', 'height: 600px; border: 1px solid #ddd; border-radius: 4px;')">
                 </div>
             `;
         } else if (certificate.fileType.includes('image')) {
             return `
                 <div class="image-preview-large text-center">
-                    <img src="/api/public/certificate/${certificate.shareableId}/preview" 
+                    <img src="/api/public/certificate/${certificate.shareableId}/thumbnail?size=1200" 
                          style="max-width: 100%; height: auto; max-height: 600px; border: 1px solid #ddd; border-radius: 4px;"
                          alt="${certificate.title}">
                 </div>
@@ -0,0 +1,110 @@
+package com.certhub.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void testIdsCarryTimeAndNodeAndStayJavaScriptSafe() {
+        long now = System.currentTimeMillis();
+        long id = new SnowflakeIdGenerator(5).nextId();
+
+        assertTrue(id > 0);
+        assertTrue(id <= (1L << 53), "id must fit in a JavaScript number");
+        assertEquals(5, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE);
+        assertTrue(Math.abs(SnowflakeIdGenerator.timestampOf(id) - now) < 1_000);
+    }
+
+    @Test
+    public void testRejectsOutOfRangeNode() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE + 1));
+    }
+
+    @Test
+    public void testClockRegressionKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-60_000);
+        long during = generator.nextId();
+        long next = generator.nextId();
+        clock.addAndGet(120_000);
+        long after = generator.nextId();
+
+        assertTrue(during > before);
+        assertTrue(next > during);
+        assertTrue(after > next);
+    }
+
+    @Test
+    public void testSequenceOverflowBorrowsTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, () -> 1_750_000_000_000L);
+        long previous = generator.nextId();
+        for (int i = 0; i < 1_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testAdvancePastExistingIds() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(2);
+        long future = new SnowflakeIdGenerator(3, () -> System.currentTimeMillis() + 3_600_000).nextId();
+
+        generator.advancePast(future);
+        assertTrue(generator.nextId() > future);
+    }
+
+    @Test
+    public void testConcurrentGenerationHasNoDuplicates() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        int threads = 8;
+        int perThread = 250_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                long[] ids = new long[perThread];
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+
+        start.countDown();
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        for (Future<long[]> result : results) {
+            long[] ids = result.get();
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "ids from one thread must increase");
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "duplicate id");
+        }
+    }
+}
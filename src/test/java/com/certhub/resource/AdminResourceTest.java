@@ -0,0 +1,69 @@
+package com.certhub.resource;
+
+import com.certhub.dto.LoginRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+@QuarkusTest
+public class AdminResourceTest {
+
+    @Test
+    public void testCacheStatsRequireAuthentication() {
+        given()
+                .when().get("/api/admin/cache")
+                .then()
+                .statusCode(401)
+                .body("message", is("Authentication required"));
+    }
+
+    @Test
+    public void testCacheStats() {
+        String sessionId = given()
+                .contentType(ContentType.JSON)
+                .body(new LoginRequest("admin", "admin123", "test-recaptcha-response"))
+                .when().post("/api/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().cookie("sessionId");
+
+        given()
+                .cookie("sessionId", sessionId)
+                .when().get("/api/admin/cache")
+                .then()
+                .statusCode(200)
+                .body("capacityBytes", notNullValue())
+                .body("hits", notNullValue())
+                .body("evictions", notNullValue());
+    }
+
+    @Test
+    public void testRecordingDownload() {
+        String sessionId = given()
+                .contentType(ContentType.JSON)
+                .body(new LoginRequest("admin", "admin123", "test-recaptcha-response"))
+                .when().post("/api/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().cookie("sessionId");
+
+        byte[] recording = given()
+                .cookie("sessionId", sessionId)
+                .when().get("/api/admin/recording")
+                .then()
+                .statusCode(200)
+                .header("Content-Disposition", startsWith("attachment; filename=\"certhub-"))
+                .extract().asByteArray();
+
+        // Every JFR chunk starts with the "FLR\0" magic
+        assertArrayEquals(new byte[]{'F', 'L', 'R', 0}, Arrays.copyOf(recording, 4));
+    }
+}
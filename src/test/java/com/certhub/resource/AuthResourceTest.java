@@ -71,4 +71,40 @@ public class AuthResourceTest {
                 .statusCode(200)
                 .body("message", is("Logged out successfully"));
     }
+
+    @Test
+    public void testLogoutEndsOnlyTheCallersSession() {
+        String leaving = login();
+        String staying = login();
+
+        given()
+                .cookie("sessionId", leaving)
+                .contentType(ContentType.JSON)
+                .when().post("/api/auth/logout")
+                .then()
+                .statusCode(200);
+
+        given()
+                .cookie("sessionId", leaving)
+                .when().get("/api/auth/status")
+                .then()
+                .statusCode(200)
+                .body("authenticated", is(false));
+        given()
+                .cookie("sessionId", staying)
+                .when().get("/api/auth/status")
+                .then()
+                .statusCode(200)
+                .body("authenticated", is(true));
+    }
+
+    private static String login() {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(new LoginRequest("admin", "admin123", "test-recaptcha-response"))
+                .when().post("/api/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().cookie("sessionId");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,327 @@
+package com.certhub.resource;
+
+import com.certhub.dto.LoginRequest;
+import com.certhub.entity.Certificate;
+import com.certhub.service.CertificateService;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
+
+@QuarkusTest
+public class CertificateResourceTest {
+
+    @Inject
+    CertificateService certificateService;
+
+    private String sessionId;
+
+    @BeforeEach
+    public void login() {
+        sessionId = given()
+                .contentType(ContentType.JSON)
+                .body(new LoginRequest("admin", "admin123", "test-recaptcha-response"))
+                .when().post("/api/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().cookie("sessionId");
+    }
+
+    @Test
+    public void testStreamUploadRequiresAuthentication() {
+        given()
+                .contentType("application/octet-stream")
+                .queryParam("fileName", "cert.pdf")
+                .body("%PDF-1.4".getBytes())
+                .when().post("/api/certificates/upload/stream")
+                .then()
+                .statusCode(401)
+                .body("message", is("Authentication required"));
+    }
+
+    @Test
+    public void testEveryCertificateEndpointRequiresAuthentication() {
+        given().when().delete("/api/certificates/1")
+                .then()
+                .statusCode(401)
+                .body("message", is("Authentication required"));
+        given().cookie("sessionId", "not-a-session").when().get("/api/certificates")
+                .then()
+                .statusCode(401);
+        given().when().get("/api/certificates/uploads/some-session")
+                .then()
+                .statusCode(401);
+    }
+
+    @Test
+    public void testStreamUploadRejectsUnsupportedExtension() {
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType("application/octet-stream")
+                .queryParam("fileName", "cert.png")
+                .body(new byte[] {1, 2, 3, 4})
+                .when().post("/api/certificates/upload/stream")
+                .then()
+                .statusCode(400)
+                .body("message", is("Only PDF and JPEG files are allowed"));
+    }
+
+    @Test
+    public void testStreamUploadRejectsMismatchedContent() {
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType("application/octet-stream")
+                .queryParam("fileName", "cert.pdf")
+                .body("not really a pdf".getBytes())
+                .when().post("/api/certificates/upload/stream")
+                .then()
+                .statusCode(400)
+                .body("message", is("File content does not match a PDF or JPEG file"));
+    }
+
+    @Test
+    public void testUpdateRejectsOverlongTitleWithoutChangingCertificate() {
+        Certificate certificate = new Certificate("Original", null, "long.pdf",
+                "application/pdf", "long-title", "test-bucket", 100L);
+        certificate.id = 9201L;
+        certificateService.saveCertificate(certificate);
+
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType(ContentType.JSON)
+                .body("{\"title\":\"" + "x".repeat(CertificateResource.MAX_TEXT_LENGTH + 1) + "\"}")
+                .when().put("/api/certificates/9201")
+                .then()
+                .statusCode(400);
+
+        given()
+                .cookie("sessionId", sessionId)
+                .when().get("/api/certificates/9201")
+                .then()
+                .statusCode(200)
+                .body("title", is("Original"));
+    }
+
+    @Test
+    public void testUploadSessionRejectsOversizedFile() {
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType(ContentType.JSON)
+                .body("{\"fileName\":\"cert.pdf\",\"fileSize\":" + (16 * 1024 * 1024) + "}")
+                .when().post("/api/certificates/uploads")
+                .then()
+                .statusCode(400)
+                .body("message", is("File size exceeds 15MB limit"));
+    }
+
+    @Test
+    public void testUploadPartForUnknownSession() {
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType("application/octet-stream")
+                .body(new byte[] {1, 2, 3, 4})
+                .when().put("/api/certificates/uploads/unknown-session/parts/1")
+                .then()
+                .statusCode(404)
+                .body("message", is("Upload session not found"));
+    }
+
+    @Test
+    public void testImportRequiresAuthentication() throws IOException {
+        given()
+                .contentType("application/zip")
+                .body(zip("cert.pdf", "%PDF-1.4".getBytes()))
+                .when().post("/api/certificates/import")
+                .then()
+                .statusCode(401);
+    }
+
+    @Test
+    public void testImportReportsRejectedEntries() throws IOException {
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType("application/zip")
+                .body(zip("notes.txt", "hello".getBytes(),
+                        "certs/fake.pdf", "not really a pdf".getBytes(),
+                        "__MACOSX/._fake.pdf", new byte[] {0},
+                        "manifest.json", "{not json".getBytes()))
+                .when().post("/api/certificates/import")
+                .then()
+                .statusCode(200)
+                .body("imported", is(0))
+                .body("rejected", is(3))
+                .body("entries.name", contains("notes.txt", "certs/fake.pdf", "manifest.json"))
+                .body("entries.message", contains("Only PDF and JPEG files are allowed",
+                        "File content does not match a PDF or JPEG file", "Manifest is not a valid JSON list"));
+    }
+
+    @Test
+    public void testImportRejectsBodyWithoutEntries() {
+        given()
+                .cookie("sessionId", sessionId)
+                .contentType("application/zip")
+                .body("definitely not a zip".getBytes())
+                .when().post("/api/certificates/import")
+                .then()
+                .statusCode(400)
+                .body("message", is("Archive contains no certificate files"));
+    }
+
+    @Test
+    public void testListingPagesNewestFirstWithinDateWindow() {
+        seedListingCertificates();
+
+        String cursor = given()
+                .cookie("sessionId", sessionId)
+                .queryParam("from", "2001-03-01")
+                .queryParam("to", "2001-03-31")
+                .queryParam("limit", 2)
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(9005, 9004))
+                .body("nextCursor", notNullValue())
+                .extract().path("nextCursor");
+
+        cursor = given()
+                .cookie("sessionId", sessionId)
+                .queryParam("from", "2001-03-01")
+                .queryParam("to", "2001-03-31")
+                .queryParam("limit", 2)
+                .queryParam("after", cursor)
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(9003, 9002))
+                .extract().path("nextCursor");
+
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("from", "2001-03-01")
+                .queryParam("to", "2001-03-31")
+                .queryParam("limit", 2)
+                .queryParam("after", cursor)
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(9001))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    public void testListingFiltersByFileTypeAndDay() {
+        seedListingCertificates();
+
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("from", "2001-03-01")
+                .queryParam("to", "2001-03-31")
+                .queryParam("type", "image/")
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(9004, 9002));
+
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("from", "2001-03-03")
+                .queryParam("to", "2001-03-03")
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(9003));
+    }
+
+    @Test
+    public void testListingRejectsInvalidParameters() {
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("limit", 0)
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(400);
+
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("after", "not-a-cursor")
+                .when().get("/api/certificates")
+                .then()
+                .statusCode(400)
+                .body("message", is("Invalid cursor or date filter"));
+    }
+
+    @Test
+    public void testSearchRanksTitleMatchesFirst() {
+        Certificate inTitle = new Certificate("Zyxwv Quantum Practitioner", null, "quantum.pdf",
+                "application/pdf", "search-1", "test-bucket", 100L);
+        inTitle.id = 9101L;
+        Certificate inFileName = new Certificate("Unrelated", null, "zyxwv-notes.pdf",
+                "application/pdf", "search-2", "test-bucket", 100L);
+        inFileName.id = 9102L;
+        certificateService.saveCertificate(inTitle);
+        certificateService.saveCertificate(inFileName);
+
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("q", "ZYXW")
+                .when().get("/api/certificates/search")
+                .then()
+                .statusCode(200)
+                .body("id", contains(9101, 9102));
+
+        given()
+                .cookie("sessionId", sessionId)
+                .queryParam("q", "zyxwv quant")
+                .when().get("/api/certificates/search")
+                .then()
+                .statusCode(200)
+                .body("id", contains(9101));
+    }
+
+    @Test
+    public void testSearchRequiresQuery() {
+        given()
+                .cookie("sessionId", sessionId)
+                .when().get("/api/certificates/search")
+                .then()
+                .statusCode(400);
+    }
+
+    private void seedListingCertificates() {
+        for (int day = 1; day <= 5; day++) {
+            boolean image = day % 2 == 0;
+            Certificate certificate = new Certificate("Listing " + day, null,
+                    image ? "listing.jpg" : "listing.pdf", image ? "image/jpeg" : "application/pdf",
+                    "listing-" + day, "test-bucket", 100L);
+            certificate.id = 9000L + day;
+            certificate.uploadedAt = LocalDateTime.of(2001, 3, day, 10, 0);
+            certificateService.saveCertificate(certificate);
+        }
+    }
+
+    // Alternating entry names and contents
+    private static byte[] zip(Object... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                zip.write((byte[]) entries[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
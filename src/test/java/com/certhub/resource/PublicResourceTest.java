@@ -1,14 +1,22 @@
 package com.certhub.resource;
 
+import com.certhub.entity.Certificate;
+import com.certhub.service.CertificateService;
 import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 
 @QuarkusTest
 public class PublicResourceTest {
 
+    @Inject
+    CertificateService certificateService;
+
     @Test
     public void testGetPublicCertificateWithoutRecaptcha() {
         given()
@@ -46,4 +54,37 @@ public class PublicResourceTest {
                 .statusCode(404)
                 .body("message", is("Certificate not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPreviewRevalidationWithEtagSkipsS3() {
+        Certificate certificate = storedCertificate();
+
+        given()
+                .header("If-None-Match", "*")
+                .when().get("/api/public/certificate/" + certificate.shareableId + "/preview")
+                .then()
+                .statusCode(304)
+                .header("ETag", notNullValue())
+                .header("Cache-Control", containsString("immutable"));
+    }
+
+    @Test
+    public void testDownloadRevalidationWithLastModifiedSkipsS3() {
+        Certificate certificate = storedCertificate();
+
+        given()
+                .header("If-Modified-Since", "Fri, 31 Dec 2100 23:59:59 GMT")
+                .when().get("/api/public/certificate/" + certificate.shareableId + "/download")
+                .then()
+                .statusCode(304)
+                .header("Last-Modified", notNullValue());
+    }
+
+    private Certificate storedCertificate() {
+        // No object exists behind this key, so a 304 proves S3 was never asked
+        Certificate certificate = new Certificate("Cached", null, "cached.pdf", "application/pdf",
+                "missing-key-cached.pdf", "test-bucket", 1024L);
+        certificateService.saveCertificate(certificate);
+        return certificate;
+    }
+}
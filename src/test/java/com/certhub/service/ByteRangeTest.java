@@ -0,0 +1,55 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class ByteRangeTest {
+
+    @Test
+    public void testMissingOrMalformedHeaderServesWholeFile() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-10", 1000));
+        assertNull(ByteRange.parse("bytes=abc-10", 1000));
+        assertNull(ByteRange.parse("bytes=20-10", 1000));
+    }
+
+    @Test
+    public void testSingleRanges() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-499", 1000);
+        assertEquals(1, ranges.size());
+        assertEquals(0, ranges.get(0).start);
+        assertEquals(499, ranges.get(0).end);
+        assertEquals("bytes 0-499/1000", ranges.get(0).contentRange(1000));
+
+        ByteRange openEnded = ByteRange.parse("bytes=900-", 1000).get(0);
+        assertEquals(900, openEnded.start);
+        assertEquals(999, openEnded.end);
+
+        ByteRange suffix = ByteRange.parse("bytes=-100", 1000).get(0);
+        assertEquals(900, suffix.start);
+        assertEquals(100, suffix.length());
+
+        ByteRange clamped = ByteRange.parse("bytes=990-5000", 1000).get(0);
+        assertEquals(999, clamped.end);
+    }
+
+    @Test
+    public void testMultipleRangesAreCoalesced() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=500-599, 0-99, 100-199, 550-650", 1000);
+        assertEquals(2, ranges.size());
+        assertEquals(0, ranges.get(0).start);
+        assertEquals(199, ranges.get(0).end);
+        assertEquals(500, ranges.get(1).start);
+        assertEquals(650, ranges.get(1).end);
+    }
+
+    @Test
+    public void testUnsatisfiableRange() {
+        assertTrue(ByteRange.parse("bytes=1000-1100", 1000).isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class CertificateCodecTest {
+
+    @Test
+    public void testSidecarRoundTrip() throws IOException {
+        // Percent-encoded this title alone would be far over the 2KB user-metadata cap
+        Certificate certificate = new Certificate("Сертификат ".repeat(200), "https://example.com/verify?id=1&x=2",
+                "zertifikat café.pdf", "application/pdf", "abc-zertifikat café.pdf", "test-bucket", 2048L);
+        certificate.uploadedAt = LocalDateTime.of(2024, 2, 29, 23, 59, 59, 987_654_321);
+
+        Certificate restored = CertificateCodec.fromBytes(CertificateCodec.toBytes(certificate));
+        assertEquals(certificate.id, restored.id);
+        assertEquals(certificate.title, restored.title);
+        assertEquals(certificate.credentialLink, restored.credentialLink);
+        assertEquals(certificate.fileName, restored.fileName);
+        assertEquals(certificate.s3Key, restored.s3Key);
+        assertEquals(certificate.fileSize, restored.fileSize);
+        assertEquals(certificate.shareableId, restored.shareableId);
+        assertEquals(certificate.uploadedAt, restored.uploadedAt);
+    }
+
+    @Test
+    public void testSidecarWithMissingOptionalFields() throws IOException {
+        Certificate certificate = new Certificate();
+        certificate.id = 42L;
+        certificate.title = "Untitled";
+
+        Certificate restored = CertificateCodec.fromBytes(CertificateCodec.toBytes(certificate));
+        assertEquals(42L, restored.id);
+        assertEquals("Untitled", restored.title);
+        assertNull(restored.credentialLink);
+        assertNull(restored.fileSize);
+        assertNull(restored.uploadedAt);
+    }
+
+    @Test
+    public void testBinaryFormKeepsStringsOver64Kb() throws IOException {
+        Certificate certificate = new Certificate("証明書".repeat(30_000), null, "cert.pdf",
+                "application/pdf", "key", "test-bucket", 1L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CertificateCodec.write(certificate, new DataOutputStream(bytes));
+        Certificate restored = CertificateCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(certificate.title, restored.title);
+        assertEquals(certificate.shareableId, restored.shareableId);
+    }
+}
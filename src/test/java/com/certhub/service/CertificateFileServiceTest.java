@@ -0,0 +1,220 @@
+package com.certhub.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.certhub.dto.LoginRequest;
+import com.certhub.entity.Certificate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+public class CertificateFileServiceTest {
+
+    private static final byte[] CONTENT = "%PDF-1.4 certificate body".getBytes(StandardCharsets.US_ASCII);
+
+    @Inject
+    S3Service s3Service;
+
+    @Inject
+    ObjectCacheService objectCacheService;
+
+    @Inject
+    CertificateService certificateService;
+
+    @Inject
+    CertificateFileService certificateFileService;
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private AmazonS3 realClient;
+    private boolean cacheEnabled;
+    private int startPermits;
+    private String sessionId;
+
+    @BeforeEach
+    public void stubStorage() {
+        S3Service s3 = ClientProxy.unwrap(s3Service);
+        realClient = s3.s3Client;
+        s3.s3Client = (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(),
+                new Class<?>[]{AmazonS3.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("getObject")) {
+                        return method.invoke(realClient, args);
+                    }
+                    byte[] body = CONTENT;
+                    if (args[0] instanceof GetObjectRequest request && request.getRange() != null) {
+                        long[] range = request.getRange();
+                        body = Arrays.copyOfRange(CONTENT, (int) range[0], (int) range[1] + 1);
+                    }
+                    opened.incrementAndGet();
+                    S3Object object = new S3Object();
+                    object.getObjectMetadata().setContentLength(body.length);
+                    object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(body), new HttpGet()));
+                    return object;
+                });
+        ObjectCacheService cache = ClientProxy.unwrap(objectCacheService);
+        cacheEnabled = cache.enabled;
+        cache.enabled = false;
+        startPermits = s3Service.availablePermits();
+
+        Certificate certificate = new Certificate("Head test", null, "head.pdf",
+                "application/pdf", "head-test", "test-bucket", (long) CONTENT.length);
+        certificate.id = 9301L;
+        certificateService.saveCertificate(certificate);
+
+        sessionId = given()
+                .contentType(ContentType.JSON)
+                .body(new LoginRequest("admin", "admin123", "test-recaptcha-response"))
+                .when().post("/api/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().cookie("sessionId");
+    }
+
+    @AfterEach
+    public void restoreStorage() {
+        ClientProxy.unwrap(s3Service).s3Client = realClient;
+        ClientProxy.unwrap(objectCacheService).enabled = cacheEnabled;
+        objectCacheService.invalidate("head-test");
+        ClientProxy.unwrap(certificateFileService).presignedRedirect = false;
+        certificateService.deleteCertificate(9301L);
+    }
+
+    @Test
+    public void testHeadDoesNotOpenTheObjectOrHoldAPermit() {
+        for (int i = 0; i < 3; i++) {
+            given()
+                    .cookie("sessionId", sessionId)
+                    .when().head("/api/certificates/9301/download")
+                    .then()
+                    .statusCode(200);
+            given()
+                    .cookie("sessionId", sessionId)
+                    .header("Range", "bytes=0-3")
+                    .when().head("/api/certificates/9301/download")
+                    .then()
+                    .statusCode(206);
+        }
+
+        assertEquals(0, opened.get());
+        assertEquals(startPermits, s3Service.availablePermits());
+    }
+
+    @Test
+    public void testHeadDoesNotFillTheCache() throws InterruptedException {
+        ClientProxy.unwrap(objectCacheService).enabled = cacheEnabled;
+        given()
+                .cookie("sessionId", sessionId)
+                .when().head("/api/certificates/9301/download")
+                .then()
+                .statusCode(200);
+
+        Thread.sleep(200);
+        assertEquals(0, opened.get());
+        assertNull(objectCacheService.getCachedFile("head-test"));
+    }
+
+    @Test
+    public void testGetStreamsTheObjectAndReturnsThePermit() throws InterruptedException {
+        given()
+                .cookie("sessionId", sessionId)
+                .when().get("/api/certificates/9301/download")
+                .then()
+                .statusCode(200)
+                .body(is(new String(CONTENT, StandardCharsets.US_ASCII)));
+        given()
+                .cookie("sessionId", sessionId)
+                .header("Range", "bytes=0-3")
+                .when().get("/api/certificates/9301/download")
+                .then()
+                .statusCode(206)
+                .body(is("%PDF"));
+
+        assertEquals(2, opened.get());
+        // The permit is released when the stream closes, which can trail the last byte slightly
+        for (int i = 0; i < 100 && s3Service.availablePermits() != startPermits; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(startPermits, s3Service.availablePermits());
+    }
+
+    @Test
+    public void testCachedFilesAndRedirectsCountTowardsBytesOut() throws InterruptedException {
+        ClientProxy.unwrap(objectCacheService).enabled = cacheEnabled;
+        Counter download = transferMetrics.bytesOut("/api/certificates/{id}/download");
+        double before = download.count();
+
+        // A full GET streams from S3 while the cache fills; the range is then a part of the cached file
+        given()
+                .cookie("sessionId", sessionId)
+                .when().get("/api/certificates/9301/download")
+                .then()
+                .statusCode(200)
+                .body(is(new String(CONTENT, StandardCharsets.US_ASCII)));
+        for (int i = 0; i < 100 && objectCacheService.getCachedFile("head-test") == null; i++) {
+            Thread.sleep(20);
+        }
+        assertNotNull(objectCacheService.getCachedFile("head-test"));
+        given()
+                .cookie("sessionId", sessionId)
+                .header("Range", "bytes=0-3")
+                .when().get("/api/certificates/9301/download")
+                .then()
+                .statusCode(206)
+                .body(is("%PDF"));
+        given()
+                .cookie("sessionId", sessionId)
+                .when().head("/api/certificates/9301/download")
+                .then()
+                .statusCode(200);
+        assertEquals(2, opened.get());
+        assertEquals(before + CONTENT.length + 4, download.count());
+
+        ClientProxy.unwrap(certificateFileService).presignedRedirect = true;
+        String endpoint = "/api/public/certificate/{shareableId}/download";
+        Counter shared = transferMetrics.bytesOut(endpoint);
+        double sharedBefore = shared.count();
+        double redirectedBefore = redirected(endpoint);
+        given()
+                .redirects().follow(false)
+                .when().get("/api/public/certificate/" + certificateService.findById(9301L).shareableId + "/download")
+                .then()
+                .statusCode(307);
+        // S3 sends the bytes, so they are kept out of our own egress
+        assertEquals(sharedBefore, shared.count());
+        assertEquals(redirectedBefore + CONTENT.length, redirected(endpoint));
+    }
+
+    private double redirected(String endpoint) {
+        Counter counter = registry.find("certhub.transfer.bytes")
+                .tags("endpoint", endpoint, "direction", "redirect")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
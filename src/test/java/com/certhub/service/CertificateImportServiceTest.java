@@ -0,0 +1,208 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class CertificateImportServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.4 imported".getBytes(StandardCharsets.US_ASCII);
+    private static final Function<String, String> PDF_ONLY = name -> name.endsWith(".pdf") ? "application/pdf" : null;
+    private static final Predicate<String> TOO_LONG = text -> text != null && text.length() > 64;
+
+    @Inject
+    CertificateImportService importService;
+
+    private StubStorage storage;
+    private RecordingCertificateService certificates;
+    private int maxEntries;
+    private MemorySize maxTotalSize;
+
+    @BeforeEach
+    public void installStubs() {
+        storage = new StubStorage();
+        certificates = new RecordingCertificateService();
+        QuarkusMock.installMockForType(storage, S3Service.class);
+        QuarkusMock.installMockForType(certificates, CertificateService.class);
+        CertificateImportService service = ClientProxy.unwrap(importService);
+        maxEntries = service.maxEntries;
+        maxTotalSize = service.maxTotalSize;
+    }
+
+    @AfterEach
+    public void restoreLimits() {
+        CertificateImportService service = ClientProxy.unwrap(importService);
+        service.maxEntries = maxEntries;
+        service.maxTotalSize = maxTotalSize;
+    }
+
+    @Test
+    public void testManifestDetailsAreAppliedAndSavedInOneBatch() throws IOException {
+        byte[] archive = zip("manifest.json", """
+                        [{"file": "aws.pdf", "title": "AWS Solutions Architect", "credentialLink": "https://example.com/aws"}]
+                        """.getBytes(StandardCharsets.UTF_8),
+                "certs/aws.pdf", PDF,
+                "k8s.pdf", PDF);
+
+        List<CertificateImportService.EntryResult> results = importService.importArchive(
+                new ByteArrayInputStream(archive), PDF_ONLY, TOO_LONG, 1024 * 1024);
+
+        assertEquals(2, results.size());
+        for (CertificateImportService.EntryResult result : results) {
+            assertEquals(CertificateImportService.IMPORTED, result.status);
+            assertEquals(PDF.length, result.certificate.fileSize);
+        }
+        Certificate aws = results.get(0).certificate;
+        assertEquals("AWS Solutions Architect", aws.title);
+        assertEquals("https://example.com/aws", aws.credentialLink);
+        assertEquals("aws.pdf", aws.fileName);
+        Certificate k8s = results.get(1).certificate;
+        assertEquals("k8s", k8s.title);
+        assertNull(k8s.credentialLink);
+
+        assertEquals(1, certificates.batches.size());
+        assertEquals(List.of(aws, k8s), certificates.batches.get(0));
+        assertEquals(2, storage.uploaded.size());
+        assertTrue(storage.deleted.isEmpty());
+    }
+
+    @Test
+    public void testManifestTextOverTheLimitRejectsTheEntry() throws IOException {
+        byte[] archive = zip("a.pdf", PDF,
+                "b.pdf", PDF,
+                "c.pdf", PDF,
+                "manifest.json", ("""
+                        [{"file": "a.pdf", "title": "%s"},
+                         {"file": "b.pdf", "credentialLink": "https://example.com/%s"}]
+                        """.formatted("x".repeat(65), "y".repeat(64))).getBytes(StandardCharsets.UTF_8));
+
+        List<CertificateImportService.EntryResult> results = importService.importArchive(
+                new ByteArrayInputStream(archive), PDF_ONLY, TOO_LONG, 1024 * 1024);
+
+        assertEquals(3, results.size());
+        for (CertificateImportService.EntryResult rejected : results.subList(0, 2)) {
+            assertEquals(CertificateImportService.REJECTED, rejected.status);
+            assertEquals("Title or credential link is too long", rejected.message);
+            assertNull(rejected.certificate);
+        }
+        assertEquals(CertificateImportService.IMPORTED, results.get(2).status);
+        assertEquals(List.of(results.get(2).certificate), certificates.batches.get(0));
+        assertEquals(List.of("import-test/a.pdf", "import-test/b.pdf"), storage.deleted.stream().sorted().toList());
+    }
+
+    @Test
+    public void testUploadsAreDeletedWhenTheBatchCannotBeSaved() throws IOException {
+        certificates.failure = new UncheckedIOException(new IOException("disk full"));
+        byte[] archive = zip("a.pdf", PDF, "b.pdf", PDF);
+
+        assertThrows(UncheckedIOException.class, () -> importService.importArchive(
+                new ByteArrayInputStream(archive), PDF_ONLY, TOO_LONG, 1024 * 1024));
+        assertEquals(2, storage.uploaded.size());
+        assertEquals(storage.uploaded.stream().sorted().toList(), storage.deleted.stream().sorted().toList());
+    }
+
+    @Test
+    public void testReadingStopsAtMaxEntries() throws IOException {
+        ClientProxy.unwrap(importService).maxEntries = 2;
+        byte[] incompressible = new byte[64 * 1024];
+        new Random(3).nextBytes(incompressible);
+        ByteArrayInputStream archive = new ByteArrayInputStream(zip(
+                "1.pdf", PDF, "2.pdf", PDF, "3.pdf", incompressible, "4.pdf", PDF));
+
+        List<CertificateImportService.EntryResult> results = importService.importArchive(archive, PDF_ONLY, TOO_LONG, 1024 * 1024);
+
+        assertEquals(3, results.size());
+        assertEquals(CertificateImportService.IMPORTED, results.get(1).status);
+        assertEquals("3.pdf", results.get(2).name);
+        assertEquals(CertificateImportService.REJECTED, results.get(2).status);
+        assertEquals("Archive has more than 2 files; the rest were not imported", results.get(2).message);
+        assertEquals(2, storage.uploaded.size());
+        assertTrue(archive.available() > 0, "the archive was read past the limit");
+    }
+
+    @Test
+    public void testArchiveInflatingPastTheLimitIsRefused() throws IOException {
+        ClientProxy.unwrap(importService).maxTotalSize = new MemorySize(BigInteger.valueOf(1024 * 1024));
+        // Skipped entries are inflated too, so a rejected one still counts
+        byte[] archive = zip("a.pdf", PDF, "zeros.txt", new byte[2 * 1024 * 1024]);
+
+        assertThrows(CertificateImportService.ArchiveTooLargeException.class, () -> importService.importArchive(
+                new ByteArrayInputStream(archive), PDF_ONLY, TOO_LONG, 1024 * 1024));
+        assertEquals(1, storage.uploaded.size());
+        assertEquals(storage.uploaded, storage.deleted);
+        assertTrue(certificates.batches.isEmpty());
+    }
+
+    private static byte[] zip(Object... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+                zip.write((byte[]) namesAndContents[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // Keeps uploads in memory; only what the import calls is overridden
+    static class StubStorage extends S3Service {
+        final List<String> uploaded = Collections.synchronizedList(new ArrayList<>());
+        final List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String uploadFile(InputStream fileStream, String fileName, String contentType, long contentLength) {
+            try {
+                assertEquals(contentLength, fileStream.readAllBytes().length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            String key = "import-test/" + fileName;
+            uploaded.add(key);
+            return key;
+        }
+
+        @Override
+        public void deleteFile(String key) {
+            deleted.add(key);
+        }
+    }
+
+    static class RecordingCertificateService extends CertificateService {
+        final List<List<Certificate>> batches = new ArrayList<>();
+        RuntimeException failure;
+
+        @Override
+        public void saveCertificates(List<Certificate> batch) {
+            if (failure != null) {
+                throw failure;
+            }
+            batches.add(List.copyOf(batch));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class CertificateRehydrationCheckTest {
+
+    @Test
+    public void testReadyWhenRehydrationDisabled() {
+        given()
+          .when().get("/q/health/ready")
+          .then()
+             .statusCode(200)
+             .body("checks.find { it.name == 'certificate-rehydration' }.status", is("UP"));
+    }
+
+    @Test
+    public void testTransientFailuresAreRetried() {
+        FlakyStorage storage = new FlakyStorage(2, 2);
+        RecordingCertificateService certificates = new RecordingCertificateService();
+
+        rehydration(storage, certificates).rehydrate();
+
+        assertEquals(3, certificates.restored.size());
+        assertEquals(3, storage.listings.get());
+    }
+
+    @Test
+    public void testNothingIsRestoredWhileAKeyStaysUnreadable() {
+        FlakyStorage storage = new FlakyStorage(0, 2);
+        storage.brokenKey = "metadata/2";
+        RecordingCertificateService certificates = new RecordingCertificateService();
+        CertificateRehydrationService rehydration = rehydration(storage, certificates);
+
+        rehydration.rehydrate();
+
+        assertFalse(rehydration.isFinished());
+        assertEquals(1, rehydration.getUnreadableCount());
+        assertTrue(certificates.restored.isEmpty());
+    }
+
+    private static CertificateRehydrationService rehydration(S3Service storage, CertificateService certificates) {
+        CertificateRehydrationService rehydration = new CertificateRehydrationService();
+        rehydration.s3Service = storage;
+        rehydration.certificateService = certificates;
+        rehydration.parallelism = 2;
+        rehydration.attempts = 3;
+        rehydration.backoff = Duration.ofMillis(1);
+        return rehydration;
+    }
+
+    // Three sidecars; the first listings and the first GETs of every key fail
+    static class FlakyStorage extends S3Service {
+        final AtomicInteger listings = new AtomicInteger();
+        final Map<String, AtomicInteger> gets = new ConcurrentHashMap<>();
+        final int failedListings;
+        final int failedGets;
+        String brokenKey;
+
+        FlakyStorage(int failedListings, int failedGets) {
+            this.failedListings = failedListings;
+            this.failedGets = failedGets;
+        }
+
+        @Override
+        public void listCertificateMetadataKeys(Consumer<List<String>> pageConsumer) {
+            pageConsumer.accept(List.of("metadata/1"));
+            if (listings.incrementAndGet() <= failedListings) {
+                throw new IllegalStateException("listing failed");
+            }
+            pageConsumer.accept(List.of("metadata/2", "metadata/3"));
+        }
+
+        @Override
+        public Certificate getCertificateMetadata(String metadataKey) {
+            int attempt = gets.computeIfAbsent(metadataKey, k -> new AtomicInteger()).incrementAndGet();
+            if (attempt <= failedGets || metadataKey.equals(brokenKey)) {
+                throw new IllegalStateException("GET failed");
+            }
+            Certificate certificate = new Certificate("Restored", null, "restored.pdf",
+                    "application/pdf", metadataKey, "test-bucket", 1L);
+            certificate.id = Long.parseLong(metadataKey.substring("metadata/".length()));
+            return certificate;
+        }
+    }
+
+    static class RecordingCertificateService extends CertificateService {
+        final List<Certificate> restored = new ArrayList<>();
+
+        @Override
+        public void restoreCertificates(Collection<Certificate> certificates) {
+            restored.addAll(certificates);
+        }
+    }
+}
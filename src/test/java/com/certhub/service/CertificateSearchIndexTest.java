@@ -0,0 +1,131 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class CertificateSearchIndexTest {
+
+    private static final String[] WORDS = {
+            "aws", "azure", "google", "cloud", "solutions", "architect", "associate", "professional",
+            "developer", "kubernetes", "administrator", "security", "specialty", "data", "engineer",
+            "machine", "learning", "deep", "python", "java", "spring", "react", "scrum", "master",
+            "product", "owner", "agile", "project", "management", "itil", "foundation", "network",
+            "terraform", "devops", "linux", "oracle", "database", "analytics", "science", "statistics"
+    };
+    private static final String[] HOSTS = {
+            "https://www.credly.com/badges/", "https://coursera.org/verify/", "https://www.udemy.com/certificate/",
+            "https://learn.microsoft.com/api/credentials/", "https://cloud.google.com/certification/",
+            "https://www.edx.org/verify/", "https://verify.linuxfoundation.org/"
+    };
+
+    @Test
+    public void testTokenizedPrefixAndCaseInsensitiveMatching() {
+        CertificateSearchIndex index = new CertificateSearchIndex();
+        index.add(certificate(1L, "AWS Solutions Architect", "aws-saa.pdf", "https://www.credly.com/badges/1"));
+        index.add(certificate(2L, "Kubernetes Administrator", "cka.pdf", "https://training.linuxfoundation.org/x"));
+        index.add(certificate(3L, "Résumé Writing", "resume_writing.jpg", null));
+
+        assertEquals(List.of(1L), index.search("aws arch", 10));
+        assertEquals(List.of(1L), index.search("SOLUTIONS", 10));
+        assertEquals(List.of(2L), index.search("kube", 10));
+        assertEquals(List.of(3L), index.search("resume", 10));
+        assertEquals(List.of(1L), index.search("credly", 10));
+        assertEquals(List.of(2L), index.search("linuxfoundation", 10));
+        assertTrue(index.search("aws kube", 10).isEmpty());
+        assertTrue(index.search("  --  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testRankingPrefersTitleAndExactMatches() {
+        CertificateSearchIndex index = new CertificateSearchIndex();
+        index.add(certificate(1L, "Certificate of completion", "java.pdf", null));
+        index.add(certificate(2L, "Java Programming", "certificate.pdf", null));
+        index.add(certificate(3L, "JavaScript Basics", "js.pdf", null));
+
+        // Exact title match, then exact file name match, then a title prefix match
+        assertEquals(Arrays.asList(2L, 1L, 3L), index.search("java", 10));
+        assertEquals(Arrays.asList(2L, 1L), index.search("java", 2));
+    }
+
+    @Test
+    public void testUpdatesAndDeletesAreReflected() {
+        CertificateSearchIndex index = new CertificateSearchIndex();
+        Certificate certificate = certificate(1L, "Terraform Associate", "tf.pdf", null);
+        index.add(certificate);
+
+        certificate.title = "Vault Associate";
+        index.add(certificate);
+        assertTrue(index.search("terraform", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("vault", 10));
+
+        index.remove(1L);
+        assertTrue(index.search("vault", 10).isEmpty());
+        assertEquals(0, index.termCount());
+    }
+
+    @Test
+    public void testRepeatedUpdatesKeepOrdinalsBounded() {
+        CertificateSearchIndex index = new CertificateSearchIndex();
+        for (long id = 1; id <= 100; id++) {
+            index.add(certificate(id, "Stable " + WORDS[(int) id % WORDS.length], "stable.pdf", null));
+        }
+        Certificate edited = certificate(1_000L, "Draft", "draft.pdf", null);
+        for (int revision = 0; revision < 50_000; revision++) {
+            edited.title = "Revision " + revision + " " + WORDS[revision % WORDS.length];
+            index.add(edited);
+        }
+
+        assertTrue(index.ordinalCapacity() <= 4096, "ordinal slots grew to " + index.ordinalCapacity());
+        assertEquals(List.of(1_000L), index.search("revision 49999", 10));
+        assertTrue(index.search("revision 49998", 10).isEmpty());
+        assertEquals(100, index.search("stable", 200).size());
+    }
+
+    @Test
+    public void testQueriesAcrossManyCertificates() {
+        CertificateSearchIndex index = new CertificateSearchIndex();
+        Random random = new Random(42);
+        for (long id = 1; id <= 10_000; id++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 3 + random.nextInt(3); w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            String link = HOSTS[random.nextInt(HOSTS.length)] + id;
+            index.add(certificate(id, title.toString().trim(), "certificate-" + id + ".pdf", link));
+        }
+
+        String[] queries = {"kubernetes admin", "aws solutions architect", "machine learn", "Coursera python",
+                "scrum master", "terraform", "data sci", "oracle database professional"};
+        for (String query : queries) {
+            List<Long> results = index.search(query, 20);
+            assertFalse(results.isEmpty(), query);
+            assertTrue(results.size() <= 20, query);
+        }
+
+        // One-character prefixes merge thousands of terms; each certificate still comes back once
+        for (String prefix : new String[] {"a", "c", "1"}) {
+            List<Long> results = index.search(prefix, 500);
+            assertEquals(500, results.size(), prefix);
+            assertEquals(500, results.stream().distinct().count(), prefix);
+        }
+        // Certificate 1 matches "1" exactly in its file name, which outranks every longer number
+        assertEquals(1L, index.search("1", 1).get(0));
+    }
+
+    private static Certificate certificate(Long id, String title, String fileName, String link) {
+        Certificate certificate = new Certificate();
+        certificate.id = id;
+        certificate.title = title;
+        certificate.fileName = fileName;
+        certificate.credentialLink = link;
+        return certificate;
+    }
+}
@@ -0,0 +1,62 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CertificateServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private CertificateService service;
+
+    @BeforeEach
+    public void openStore() {
+        service = new CertificateService();
+        service.storeEnabled = true;
+        service.storeDirectory = directory.toString();
+        service.init();
+    }
+
+    @Test
+    public void testWritesThatFailToPersistAreRolledBack() {
+        Certificate kept = certificate(1L, "Kept", "kept");
+        service.saveCertificate(kept);
+        // A closed log fails every append, like a disk that stopped taking writes
+        service.shutdown();
+
+        Certificate replacement = certificate(1L, "Replacement", "kept");
+        assertThrows(UncheckedIOException.class, () -> service.updateCertificate(replacement));
+        assertSame(kept, service.findById(1L));
+        assertSame(kept, service.findByShareableId("kept"));
+        assertEquals(List.of(kept), service.search("kept", 10));
+
+        assertThrows(UncheckedIOException.class, () -> service.saveCertificates(List.of(
+                certificate(2L, "First", "first"), certificate(3L, "Second", "second"))));
+        assertThrows(UncheckedIOException.class, () -> service.restoreCertificates(List.of(
+                certificate(4L, "Restored", "restored"))));
+        assertNull(service.findById(2L));
+        assertNull(service.findByShareableId("second"));
+        assertNull(service.findById(4L));
+        assertEquals(List.of(kept), service.findAllCertificates());
+
+        assertThrows(UncheckedIOException.class, () -> service.deleteCertificate(1L));
+        assertSame(kept, service.findById(1L));
+    }
+
+    private static Certificate certificate(Long id, String title, String shareableId) {
+        Certificate certificate = new Certificate(title, null, title.toLowerCase() + ".pdf",
+                "application/pdf", "key-" + id, "test-bucket", 100L);
+        certificate.id = id;
+        certificate.shareableId = shareableId;
+        return certificate;
+    }
+}
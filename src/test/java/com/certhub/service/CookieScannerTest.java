@@ -0,0 +1,39 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class CookieScannerTest {
+
+    @Test
+    public void testFindsCookieAnywhereInTheHeader() {
+        assertEquals("abc", CookieScanner.value("sessionId=abc", "sessionId"));
+        assertEquals("abc", CookieScanner.value("theme=dark; sessionId=abc", "sessionId"));
+        assertEquals("abc", CookieScanner.value("theme=dark;sessionId=abc ;lang=en", "sessionId"));
+        assertEquals("abc", CookieScanner.value("sessionId=\"abc\"; theme=dark", "sessionId"));
+        assertEquals("a=b", CookieScanner.value("sessionId=a=b", "sessionId"));
+        assertEquals("", CookieScanner.value("sessionId=", "sessionId"));
+    }
+
+    @Test
+    public void testIgnoresSimilarNames() {
+        assertNull(CookieScanner.value("xsessionId=abc; sessionIds=def", "sessionId"));
+        assertNull(CookieScanner.value("sessionid=abc", "sessionId"));
+        assertNull(CookieScanner.value("sessionId", "sessionId"));
+        assertNull(CookieScanner.value("", "sessionId"));
+        assertNull(CookieScanner.value(null, "sessionId"));
+        assertEquals("def", CookieScanner.value("xsessionId=abc; sessionId=def", "sessionId"));
+    }
+
+    @Test
+    public void testLocateReturnsValueBounds() {
+        String header = "theme=dark; sessionId=abc";
+        long range = CookieScanner.locate(header, "sessionId");
+        assertEquals(22, range >>> 32);
+        assertEquals(25, (int) range);
+        assertEquals(-1, CookieScanner.locate(header, "missing"));
+    }
+}
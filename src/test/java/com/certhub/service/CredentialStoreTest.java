@@ -0,0 +1,82 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class CredentialStoreTest {
+
+    @Test
+    public void testVerifiesAgainstHashedPassword() {
+        CredentialStore store = store(Optional.empty(), Optional.of("admin123"), 4, 2, 8);
+        try {
+            assertTrue(await(store.verify("admin", "admin123")));
+            assertFalse(await(store.verify("admin", "wrong")));
+            assertFalse(await(store.verify("someone", "admin123")));
+            assertFalse(await(store.verify(null, null)));
+            assertEquals(4, store.completedHashes());
+            assertTrue(store.meanHashMillis() > 0);
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    public void testSuccessfulLoginRehashesAtConfiguredCost() {
+        String oldHash = BCrypt.hashpw("admin123", BCrypt.gensalt(4)).replaceFirst("^\\$2a\\$", "\\$2y\\$");
+        CredentialStore store = store(Optional.of(oldHash), Optional.empty(), 5, 1, 8);
+        try {
+            assertEquals(4, store.currentCost());
+            assertFalse(await(store.verify("admin", "wrong")));
+            assertEquals(4, store.currentCost());
+            assertTrue(await(store.verify("admin", "admin123")));
+            assertEquals(5, store.currentCost());
+            assertTrue(await(store.verify("admin", "admin123")));
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    public void testBurstBeyondQueueIsRejected() {
+        CredentialStore store = store(Optional.empty(), Optional.of("admin123"), 8, 1, 2);
+        try {
+            List<CompletableFuture<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                attempts.add(store.verify("admin", "guess" + i).toCompletableFuture());
+            }
+            assertTrue(store.rejectedHashes() >= 7, "rejected " + store.rejectedHashes());
+            CompletionException busy = assertThrows(CompletionException.class, () -> attempts.get(9).join());
+            assertInstanceOf(CredentialStore.CredentialsBusyException.class, busy.getCause());
+            assertFalse(attempts.get(0).join());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    private CredentialStore store(Optional<String> hash, Optional<String> password, int cost, int threads, int queue) {
+        CredentialStore store = new CredentialStore();
+        store.adminUsername = "admin";
+        store.adminPasswordHash = hash;
+        store.adminPassword = password;
+        store.bcryptCost = cost;
+        store.hashThreads = threads;
+        store.hashQueue = queue;
+        store.init();
+        return store;
+    }
+
+    private boolean await(CompletionStage<Boolean> result) {
+        return result.toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,212 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.vertx.core.buffer.Buffer;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.GenericEntity;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class DownloadStreamServiceTest {
+
+    private static final int SIZE = 200_000;
+    private static final byte[] CONTENT = new byte[SIZE];
+
+    static {
+        new Random(7).nextBytes(CONTENT);
+    }
+
+    @Inject
+    DownloadStreamService downloadStreamService;
+
+    @Test
+    public void testStreamIsReadInFullChunks() {
+        AssertSubscriber<Buffer> subscriber = downloadStreamService
+                .fromStream(new TrickleInputStream(new ByteArrayInputStream(CONTENT)))
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        subscriber.awaitCompletion(Duration.ofSeconds(10));
+        List<Buffer> chunks = subscriber.getItems();
+        assertEquals((SIZE + 32767) / 32768, chunks.size());
+        assertArrayEquals(CONTENT, concat(chunks));
+    }
+
+    @Test
+    public void testChunksAreOnlyReadOnDemand() throws InterruptedException {
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(CONTENT));
+        AssertSubscriber<Buffer> subscriber = downloadStreamService.fromStream(input)
+                .subscribe().withSubscriber(AssertSubscriber.create(1));
+
+        subscriber.awaitItems(1, Duration.ofSeconds(10));
+        Thread.sleep(200);
+        assertEquals(1, subscriber.getItems().size());
+        assertEquals(32768, input.count.get());
+
+        subscriber.request(1);
+        subscriber.awaitItems(2, Duration.ofSeconds(10));
+        assertEquals(65536, input.count.get());
+    }
+
+    @Test
+    public void testCancellationClosesTheSource() {
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(CONTENT));
+        AssertSubscriber<Buffer> subscriber = downloadStreamService.fromStream(input)
+                .subscribe().withSubscriber(AssertSubscriber.create(1));
+
+        subscriber.awaitItems(1, Duration.ofSeconds(10));
+        subscriber.cancel();
+        assertTrue(input.closed.get());
+    }
+
+    @Test
+    public void testPlainWriterCopiesBufferMultiAndIgnoresOtherMultis() throws Exception {
+        BufferStreamWriter writer = new BufferStreamWriter();
+        writer.downloadStreamService = downloadStreamService;
+        Type bufferMulti = DownloadStreamService.entity(Multi.createFrom().empty()).getType();
+        Type stringMulti = new GenericEntity<Multi<String>>(Multi.createFrom().empty()) {
+        }.getType();
+        assertTrue(writer.isWriteable(Multi.class, bufferMulti, new Annotation[0], MediaType.APPLICATION_OCTET_STREAM_TYPE));
+        assertFalse(writer.isWriteable(Multi.class, stringMulti, new Annotation[0], MediaType.SERVER_SENT_EVENTS_TYPE));
+        assertFalse(writer.isWriteable(Multi.class, Multi.class, new Annotation[0], MediaType.APPLICATION_OCTET_STREAM_TYPE));
+
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(CONTENT));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.writeTo(downloadStreamService.fromStream(input), Multi.class, bufferMulti, new Annotation[0],
+                MediaType.APPLICATION_OCTET_STREAM_TYPE, null, output);
+        assertArrayEquals(CONTENT, output.toByteArray());
+        assertTrue(input.closed.get());
+    }
+
+    @Test
+    public void testFileRangeAndConcatenation() throws IOException {
+        java.nio.file.Path file = Files.createTempFile("download-stream", ".bin");
+        try {
+            Files.write(file, CONTENT);
+            Multi<Buffer> body = downloadStreamService.concat(List.of(
+                    downloadStreamService.fromText("head"),
+                    downloadStreamService.fromFile(file, 1_000, 70_000),
+                    downloadStreamService.fromText("tail")));
+            List<Buffer> chunks = body.collect().asList().await().atMost(Duration.ofSeconds(10));
+
+            byte[] expected = new byte[4 + 70_000 + 4];
+            System.arraycopy("head".getBytes(), 0, expected, 0, 4);
+            System.arraycopy(CONTENT, 1_000, expected, 4, 70_000);
+            System.arraycopy("tail".getBytes(), 0, expected, 70_004, 4);
+            assertArrayEquals(expected, concat(chunks));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testResponseIsWrittenThroughTheStreamWriter() {
+        byte[] body = given()
+                .when().get("/test/download-stream/" + SIZE)
+                .then()
+                .statusCode(200)
+                .header("Content-Length", String.valueOf(SIZE))
+                .extract().asByteArray();
+        assertArrayEquals(CONTENT, body);
+
+        byte[] chunked = given()
+                .when().get("/test/download-stream/chunked")
+                .then()
+                .statusCode(200)
+                .header("Transfer-Encoding", "chunked")
+                .extract().asByteArray();
+        assertArrayEquals(CONTENT, chunked);
+    }
+
+    private byte[] concat(List<Buffer> chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Buffer chunk : chunks) {
+            out.writeBytes(chunk.getBytes());
+            downloadStreamService.recycle(chunk);
+        }
+        return out.toByteArray();
+    }
+
+    @Path("/test/download-stream")
+    public static class StreamingResource {
+
+        @Inject
+        DownloadStreamService downloadStreamService;
+
+        @GET
+        @Path("/{length}")
+        @Produces(MediaType.APPLICATION_OCTET_STREAM)
+        public Response sized(@PathParam("length") int length) {
+            return Response.ok(DownloadStreamService.entity(downloadStreamService.fromStream(new ByteArrayInputStream(CONTENT))))
+                    .header("Content-Length", length)
+                    .build();
+        }
+
+        @GET
+        @Path("/chunked")
+        @Produces(MediaType.APPLICATION_OCTET_STREAM)
+        public Response chunked() {
+            return Response.ok(DownloadStreamService.entity(downloadStreamService.fromStream(new ByteArrayInputStream(CONTENT)))).build();
+        }
+    }
+
+    // Hands out at most 1000 bytes per read, like a network stream
+    private static class TrickleInputStream extends FilterInputStream {
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1000));
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed.set(true);
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.certhub.service;
+
+import com.certhub.entity.Certificate;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class MetadataLogTest {
+
+    @Test
+    public void testReplayRestoresPutsAndDeletes() throws IOException {
+        Path directory = Files.createTempDirectory("metadata-log");
+
+        try (MetadataLog log = MetadataLog.open(directory, new HashMap<>())) {
+            log.appendPut(certificate(1L, "First")).join();
+            log.appendPut(certificate(2L, "Second")).join();
+            log.appendPut(certificate(1L, "First (renamed)")).join();
+            log.appendDelete(2L).join();
+        }
+
+        Map<Long, Certificate> restored = new HashMap<>();
+        try (MetadataLog ignored = MetadataLog.open(directory, restored)) {
+            assertEquals(1, restored.size());
+            Certificate certificate = restored.get(1L);
+            assertEquals("First (renamed)", certificate.title);
+            assertEquals("share-1", certificate.shareableId);
+            assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000), certificate.uploadedAt);
+            assertNull(certificate.credentialLink);
+        }
+    }
+
+    @Test
+    public void testSnapshotCompactsOlderSegments() throws IOException {
+        Path directory = Files.createTempDirectory("metadata-log");
+
+        try (MetadataLog log = MetadataLog.open(directory, new HashMap<>())) {
+            Map<Long, Certificate> state = new HashMap<>();
+            for (long id = 1; id <= 50; id++) {
+                state.put(id, certificate(id, "Certificate " + id));
+                log.appendPut(state.get(id));
+            }
+            long firstSegment = log.rotate().join();
+            log.writeSnapshot(firstSegment, new ArrayList<>(state.values()));
+            log.appendDelete(7L).join();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            // One snapshot plus the segments written after it
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+
+        Map<Long, Certificate> restored = new HashMap<>();
+        try (MetadataLog ignored = MetadataLog.open(directory, restored)) {
+            assertEquals(49, restored.size());
+            assertFalse(restored.containsKey(7L));
+            assertEquals("Certificate 50", restored.get(50L).title);
+        }
+    }
+
+    @Test
+    public void testTornTailIsIgnored() throws IOException {
+        Path directory = Files.createTempDirectory("metadata-log");
+
+        try (MetadataLog log = MetadataLog.open(directory, new HashMap<>())) {
+            log.appendPut(certificate(1L, "Durable")).join();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(f -> f.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+        // Simulate a crash halfway through writing the next record
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Map<Long, Certificate> restored = new HashMap<>();
+        try (MetadataLog ignored = MetadataLog.open(directory, restored)) {
+            assertEquals(1, restored.size());
+            assertEquals("Durable", restored.get(1L).title);
+        }
+    }
+
+    @Test
+    public void testConcurrentWritersAllReplay() throws Exception {
+        Path directory = Files.createTempDirectory("metadata-log");
+        int writers = 8;
+        int perWriter = 12_500;
+
+        try (MetadataLog log = MetadataLog.open(directory, new HashMap<>())) {
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            List<Future<?>> results = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                long base = (long) w * perWriter;
+                results.add(executor.submit(() -> {
+                    List<CompletableFuture<Void>> pending = new ArrayList<>();
+                    for (long id = base + 1; id <= base + perWriter; id++) {
+                        pending.add(log.appendPut(certificate(id, "Certificate " + id)));
+                    }
+                    pending.forEach(CompletableFuture::join);
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            executor.shutdown();
+        }
+
+        Map<Long, Certificate> restored = new ConcurrentHashMap<>();
+        try (MetadataLog ignored = MetadataLog.open(directory, restored)) {
+            assertEquals(writers * perWriter, restored.size());
+            assertEquals("Certificate 4242", restored.get(4242L).title);
+        }
+    }
+
+    @Test
+    public void testLongStringsReplayAndOversizedRecordsAreRefused() throws IOException {
+        Path directory = Files.createTempDirectory("metadata-log");
+        // Over the 64KB writeUTF limit once encoded
+        String longTitle = "Zertifikat ".repeat(4_000) + "ü".repeat(30_000);
+
+        try (MetadataLog log = MetadataLog.open(directory, new HashMap<>())) {
+            log.appendPut(certificate(1L, longTitle)).join();
+            assertThrows(UncheckedIOException.class,
+                    () -> log.appendPuts(List.of(certificate(2L, "Fine"), certificate(3L, "x".repeat(2 * 1024 * 1024)))));
+            log.appendPut(certificate(4L, "After")).join();
+        }
+
+        Map<Long, Certificate> restored = new HashMap<>();
+        try (MetadataLog ignored = MetadataLog.open(directory, restored)) {
+            assertEquals(longTitle, restored.get(1L).title);
+            // Nothing of the refused batch was queued
+            assertFalse(restored.containsKey(2L));
+            assertEquals("After", restored.get(4L).title);
+        }
+    }
+
+    private static Certificate certificate(Long id, String title) {
+        Certificate certificate = new Certificate();
+        certificate.id = id;
+        certificate.title = title;
+        certificate.fileName = "certificate-" + id + ".pdf";
+        certificate.fileType = "application/pdf";
+        certificate.s3Key = "certificates/" + id + ".pdf";
+        certificate.s3Bucket = "test-bucket";
+        certificate.fileSize = 1024L;
+        certificate.shareableId = "share-" + id;
+        certificate.uploadedAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000);
+        return certificate;
+    }
+}
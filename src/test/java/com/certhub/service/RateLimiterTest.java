@@ -0,0 +1,117 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenSteadyRate() {
+        AtomicLong clock = new AtomicLong(1_000 * SECOND);
+        RateLimiter limiter = new RateLimiter(3, 60, 1_000, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertEquals(SECOND, wait);
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+
+        clock.addAndGet(wait);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    public void testIdleKeysAreSweptAndTableStaysBounded() {
+        AtomicLong clock = new AtomicLong(1_000 * SECOND);
+        RateLimiter limiter = new RateLimiter(1, 60, 16, clock::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("10.0.0." + i);
+        }
+        assertTrue(limiter.sweep() <= 16);
+
+        clock.addAndGet(SECOND);
+        assertEquals(0, limiter.sweep());
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    public void testFloodOfNewKeysNeitherThrottlesOthersNorFreesThrottledKeys() {
+        AtomicLong clock = new AtomicLong(1_000 * SECOND);
+        RateLimiter limiter = new RateLimiter(3, 60, 160, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, limiter.tryAcquire("2001:db8::" + Integer.toHexString(i)));
+        }
+        assertTrue(limiter.sweep() <= 160);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("192.168.1.1"));
+        }
+        assertTrue(limiter.tryAcquire("192.168.1.1") > 0);
+    }
+
+    @Test
+    public void testConcurrentClientsNeverExceedTheBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100, 1, 1_000);
+        AtomicLong allowed = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    public void testLimitedEndpointAnswers429WithRetryAfter() {
+        // Rule "test": burst 2, 1 per minute
+        for (int i = 0; i < 2; i++) {
+            given().when().get("/test/rate-limit").then().statusCode(200);
+        }
+        given()
+                .when().get("/test/rate-limit")
+                .then()
+                .statusCode(429)
+                .header("Retry-After", "60")
+                .body("message", is("Too many requests, please retry later"));
+    }
+
+    @Path("/test/rate-limit")
+    @RateLimited("test")
+    public static class LimitedResource {
+
+        @GET
+        public String get() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.certhub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs RecaptchaService against a local siteverify stand-in
+@QuarkusTest
+public class RecaptchaStubServerTest {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicReference<String> lastBody = new AtomicReference<>();
+    // What the stub does next: "ok", "reject", "error" or "slow"
+    private final AtomicReference<String> mode = new AtomicReference<>("ok");
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/siteverify", exchange -> {
+            calls.incrementAndGet();
+            lastBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            String current = mode.get();
+            if ("slow".equals(current)) {
+                try {
+                    Thread.sleep(3_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int status = "error".equals(current) ? 500 : 200;
+            byte[] body = ("{\"success\":" + "ok".equals(current) + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testVerifiedTokensAreCachedAndFormIsEncoded() {
+        RecaptchaService service = service(false);
+        assertTrue(service.verifyRecaptcha("token+with&special=chars"));
+        assertTrue(service.verifyRecaptcha("token+with&special=chars"));
+        assertEquals(1, calls.get());
+
+        String body = lastBody.get();
+        assertTrue(body.startsWith("secret=s%26cret%3D&response="), body);
+        assertEquals("token+with&special=chars",
+                URLDecoder.decode(body.substring(body.indexOf("&response=") + 10), StandardCharsets.UTF_8));
+
+        mode.set("reject");
+        assertFalse(service.verifyRecaptcha("bad-token"));
+        assertFalse(service.verifyRecaptcha("bad-token"));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testTimeoutAppliesFailurePolicy() {
+        mode.set("slow");
+        assertFalse(service(false).verifyRecaptcha("token"));
+        assertTrue(service(true).verifyRecaptcha("token"));
+    }
+
+    @Test
+    public void testBreakerOpensAfterRepeatedFailuresAndRecovers() {
+        RecaptchaService service = service(false);
+        mode.set("error");
+        for (int i = 0; i < 3; i++) {
+            assertFalse(service.verifyRecaptcha("token-" + i));
+        }
+        assertEquals("open", service.breakerState());
+
+        // Open: answered locally without calling the server
+        mode.set("ok");
+        assertFalse(service.verifyRecaptcha("token-x"));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testCircuitBreakerLetsOneTrialThroughAfterTheOpenPeriod() {
+        AtomicLong clock = new AtomicLong();
+        RecaptchaService.CircuitBreaker breaker = new RecaptchaService.CircuitBreaker(2, 1_000, clock::get);
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertFalse(breaker.allowRequest());
+
+        clock.addAndGet(1_000);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals("open", breaker.state());
+
+        clock.addAndGet(1_000);
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals("closed", breaker.state());
+        assertTrue(breaker.allowRequest());
+    }
+
+    private RecaptchaService service(boolean failOpen) {
+        RecaptchaService service = new RecaptchaService();
+        service.secretKey = "s&cret=";
+        service.verifyUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/siteverify";
+        service.connectTimeout = Duration.ofSeconds(1);
+        service.requestTimeout = Duration.ofSeconds(1);
+        service.maxInFlight = 4;
+        service.cacheTtl = Duration.ofMinutes(1);
+        service.failureThreshold = 3;
+        service.openDuration = Duration.ofMinutes(1);
+        service.failOpen = failOpen;
+        service.objectMapper = new ObjectMapper();
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,67 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class SessionStoreTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long TICK = 10_000L;
+
+    @Test
+    public void testSessionsExpireAtTheirDeadline() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        SessionStore store = new SessionStore(HOUR, TICK, false, clock::get);
+        String token = store.create("admin");
+
+        clock.addAndGet(HOUR - 1);
+        assertEquals("admin", store.get(token).username);
+        assertEquals(0, store.expire());
+
+        // Rejected on lookup right away, removed by the reaper within a tick
+        clock.addAndGet(1);
+        assertNull(store.get(token));
+        String other = store.create("admin");
+        clock.addAndGet(HOUR + TICK);
+        assertEquals(1, store.expire());
+        assertEquals(0, store.size());
+        assertNull(store.get(other));
+    }
+
+    @Test
+    public void testSlidingExpirationKeepsActiveSessionsAlive() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        SessionStore store = new SessionStore(HOUR, TICK, true, clock::get);
+        String active = store.create("admin");
+        String idle = store.create("admin");
+
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(HOUR / 2);
+            assertNotNull(store.get(active));
+            store.expire();
+        }
+        assertNull(store.get(idle));
+        assertEquals(1, store.size());
+
+        clock.addAndGet(HOUR + TICK);
+        assertEquals(1, store.expire());
+        assertNull(store.get(active));
+    }
+
+    @Test
+    public void testRemovedSessionsAreSkippedByTheReaper() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        SessionStore store = new SessionStore(HOUR, TICK, false, clock::get);
+        String token = store.create("admin");
+        store.remove(token);
+
+        clock.addAndGet(2 * HOUR);
+        assertEquals(0, store.expire());
+        assertNull(store.get(token));
+    }
+}
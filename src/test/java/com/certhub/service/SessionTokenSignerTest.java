@@ -0,0 +1,77 @@
+package com.certhub.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class SessionTokenSignerTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final String OLD_KEY = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String NEW_KEY = "k2:" + Base64.getEncoder().encodeToString(
+            "a different secret of 32+ bytes!".getBytes());
+
+    @Test
+    public void testIssuedTokenVerifies() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        SessionTokenSigner signer = new SessionTokenSigner(SessionTokenSigner.parseKeys(List.of(OLD_KEY)), clock::get);
+        String token = signer.issue("admin", clock.get() + HOUR);
+
+        SessionTokenSigner.Claims claims = signer.verify(token);
+        assertNotNull(claims);
+        assertEquals("admin", claims.username);
+        assertEquals(clock.get() + HOUR, claims.expiresAt);
+        assertNotEquals(claims.nonce, signer.verify(signer.issue("admin", clock.get() + HOUR)).nonce);
+
+        clock.addAndGet(HOUR);
+        assertNull(signer.verify(token));
+    }
+
+    @Test
+    public void testTamperedTokensAreRejected() {
+        SessionTokenSigner signer = new SessionTokenSigner(SessionTokenSigner.parseKeys(List.of(OLD_KEY)));
+        String token = signer.issue("admin", System.currentTimeMillis() + HOUR);
+        String[] parts = token.split("\\.");
+
+        String otherUser = Base64.getUrlEncoder().withoutPadding().encodeToString("root".getBytes());
+        assertNull(signer.verify(String.join(".", parts[0], parts[1], parts[2], otherUser, parts[4])));
+        String later = Long.toString(System.currentTimeMillis() + 100 * HOUR, 36);
+        assertNull(signer.verify(String.join(".", parts[0], later, parts[2], parts[3], parts[4])));
+        char last = parts[4].charAt(0) == 'A' ? 'B' : 'A';
+        assertNull(signer.verify(token.substring(0, token.length() - 43) + last + parts[4].substring(1)));
+        assertNull(signer.verify("k9" + token.substring(2)));
+        assertNull(signer.verify(token.substring(1)));
+        assertNull(signer.verify("not-a-token"));
+        assertNull(signer.verify(""));
+    }
+
+    @Test
+    public void testRotatedKeysStillVerifyOldTokens() {
+        SessionTokenSigner before = new SessionTokenSigner(SessionTokenSigner.parseKeys(List.of(OLD_KEY)));
+        SessionTokenSigner rotated = new SessionTokenSigner(SessionTokenSigner.parseKeys(List.of(NEW_KEY, OLD_KEY)));
+        SessionTokenSigner retired = new SessionTokenSigner(SessionTokenSigner.parseKeys(List.of(NEW_KEY)));
+        String oldToken = before.issue("admin", System.currentTimeMillis() + HOUR);
+        String newToken = rotated.issue("admin", System.currentTimeMillis() + HOUR);
+
+        assertTrue(newToken.startsWith("k2."));
+        assertNotNull(rotated.verify(oldToken));
+        assertNotNull(rotated.verify(newToken));
+        assertNull(retired.verify(oldToken));
+        assertNull(before.verify(newToken));
+    }
+
+    @Test
+    public void testShortKeysAreRefused() {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        keys.put("weak", new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> new SessionTokenSigner(keys));
+    }
+}
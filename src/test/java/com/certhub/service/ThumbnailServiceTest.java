@@ -0,0 +1,141 @@
+package com.certhub.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ThumbnailServiceTest {
+
+    @Test
+    public void testDecodeSubsamplesLargeImages() throws IOException {
+        byte[] jpeg = jpeg(4000, 2000);
+
+        BufferedImage decoded = decode(jpeg, 480, 100_000_000L);
+
+        // 4000 / (2 * 480) -> every 4th pixel
+        assertEquals(1000, decoded.getWidth());
+        assertEquals(500, decoded.getHeight());
+    }
+
+    @Test
+    public void testDecodeRejectsOversizedImages() throws IOException {
+        byte[] jpeg = jpeg(400, 300);
+
+        assertThrows(IOException.class, () -> decode(jpeg, 160, 100_000L));
+    }
+
+    @Test
+    public void testScaleFitsLongestEdgeWithoutEnlarging() {
+        BufferedImage landscape = ThumbnailService.scale(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), 480);
+        assertEquals(480, landscape.getWidth());
+        assertEquals(240, landscape.getHeight());
+
+        BufferedImage portrait = ThumbnailService.scale(new BufferedImage(300, 900, BufferedImage.TYPE_BYTE_GRAY), 480);
+        assertEquals(160, portrait.getWidth());
+        assertEquals(480, portrait.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, portrait.getType());
+
+        BufferedImage small = ThumbnailService.scale(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), 480);
+        assertEquals(200, small.getWidth());
+        assertEquals(100, small.getHeight());
+    }
+
+    @Test
+    public void testEncodeProducesReadableJpeg() throws IOException {
+        BufferedImage thumbnail = ThumbnailService.scale(decode(jpeg(2400, 1600), 480, 100_000_000L), 480);
+
+        byte[] encoded = ThumbnailService.encode(thumbnail, 0.8f);
+
+        assertEquals((byte) 0xFF, encoded[0]);
+        assertEquals((byte) 0xD8, encoded[1]);
+        BufferedImage read = ImageIO.read(new ByteArrayInputStream(encoded));
+        assertEquals(480, read.getWidth());
+        assertEquals(320, read.getHeight());
+        assertTrue(encoded.length < 100_000);
+    }
+
+    @Test
+    public void testRenderFirstPageIsBoundedByTargetSize() throws IOException {
+        Path pdf = Files.createTempFile("thumbnail-test-", ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            // A4 portrait, then a huge landscape page that must not be rendered
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            document.addPage(new PDPage(new PDRectangle(14_400, 7_200)));
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.setNonStrokingColor(Color.BLUE);
+                content.addRect(100, 400, 300, 200);
+                content.fill();
+            }
+            document.save(pdf.toFile());
+
+            BufferedImage rendered = ThumbnailService.renderFirstPage(pdf, 480, 1024 * 1024);
+
+            assertEquals(960, rendered.getHeight());
+            assertEquals(679, rendered.getWidth(), 1);
+            BufferedImage thumbnail = ThumbnailService.scale(rendered, 480);
+            assertEquals(480, thumbnail.getHeight());
+        } finally {
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    @Test
+    public void testRenderRejectsDocumentsThatAreNotPdf() throws IOException {
+        Path notPdf = Files.createTempFile("thumbnail-test-", ".pdf");
+        try {
+            Files.write(notPdf, jpeg(100, 100));
+
+            assertThrows(IOException.class, () -> ThumbnailService.renderFirstPage(notPdf, 480, 1024 * 1024));
+        } finally {
+            Files.deleteIfExists(notPdf);
+        }
+    }
+
+    @Test
+    public void testVariantKeysAndSizes() {
+        int[] sizes = {480, 1200};
+
+        assertEquals(480, ThumbnailService.pickSize(sizes, 0));
+        assertEquals(480, ThumbnailService.pickSize(sizes, 480));
+        assertEquals(1200, ThumbnailService.pickSize(sizes, 481));
+        assertEquals(1200, ThumbnailService.pickSize(sizes, 4000));
+        assertEquals("thumbnails/480/abc-cert.png.jpg", ThumbnailService.keyFor("abc-cert.png", 480));
+    }
+
+    private static BufferedImage decode(byte[] jpeg, int maxEdge, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(jpeg))) {
+            return ThumbnailService.decode(input, maxEdge, maxPixels);
+        }
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+        graphics.dispose();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,38 @@
+package com.certhub.service;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+
+@QuarkusTest
+public class TransferMetricsTest {
+
+    @Inject
+    TransferMetrics transferMetrics;
+
+    @Test
+    public void testPrometheusEndpointExposesTransferMetrics() {
+        transferMetrics.received("/test/upload", 2048);
+        transferMetrics.bytesOut("/test/download").increment(4096);
+        transferMetrics.uploaded(2048);
+        LongTaskTimer.Sample download = transferMetrics.downloadStarted();
+        try {
+            given()
+                    .when().get("/q/metrics")
+                    .then()
+                    .statusCode(200)
+                    .body(containsString("certhub_transfer_bytes_total{direction=\"in\",endpoint=\"/test/upload\"} 2048.0"))
+                    .body(containsString("certhub_transfer_bytes_total{direction=\"out\",endpoint=\"/test/download\"} 4096.0"))
+                    .body(containsString("certhub_transfer_active_seconds_active_count{direction=\"out\"} 1.0"))
+                    .body(containsString("certhub_upload_size_bytes_bucket{le="))
+                    .body(containsString("certhub_sessions_active"))
+                    .body(containsString("certhub_s3_permits_available"));
+        } finally {
+            download.stop();
+        }
+    }
+}